@@ -0,0 +1,58 @@
+package project.code.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import project.code.repository.UserRepository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache ngắn hạn "user này vẫn còn tồn tại" cho principal dựng từ JWT.
+ * Tắt khi revocation-check-ttl-seconds = 0; khi bật, mỗi user chỉ bị tra DB tối đa một lần mỗi TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActiveUserCache {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final UserRepository userRepository;
+
+    @Value("${application.security.jwt.revocation-check-ttl-seconds:0}")
+    private long ttlSeconds;
+
+    // userId -> thời điểm (nanoTime) hết hạn xác nhận
+    private final ConcurrentHashMap<Long, Long> verifiedUntil = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return ttlSeconds > 0;
+    }
+
+    public boolean isActive(Long userId, String email) {
+        long now = System.nanoTime();
+        Long until = verifiedUntil.get(userId);
+        if (until != null && until - now > 0) {
+            return true;
+        }
+
+        boolean active = userRepository.existsByIdAndEmail(userId, email);
+        if (active) {
+            if (verifiedUntil.size() >= MAX_ENTRIES) {
+                verifiedUntil.clear();
+            }
+            verifiedUntil.put(userId, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        } else {
+            verifiedUntil.remove(userId);
+        }
+        return active;
+    }
+
+    // Gọi khi xóa tài khoản để token của user đó bị từ chối ngay trên node này
+    public void evict(Long userId) {
+        if (userId != null) {
+            verifiedUntil.remove(userId);
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package project.code.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import project.code.model.User;
 import project.code.repository.UserRepository;
 
 @Configuration
@@ -19,6 +22,9 @@ public class ApplicationConfig {
 
     private final UserRepository userRepository;
 
+    @Value("${application.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     // 1. Bean để Spring biết cách tìm User
     @Bean
     public UserDetailsService userDetailsService() {
@@ -26,10 +32,21 @@ public class ApplicationConfig {
                 .orElseThrow(() -> new UsernameNotFoundException("Không tìm thấy người dùng với email: " + username));
     }
 
-    // 2. Bean để mã hóa mật khẩu
+    // 2. Bean để mã hóa mật khẩu (work factor cấu hình được, mặc định 10)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
+    }
+
+    // Khi đăng nhập thành công mà hash cũ có work factor thấp hơn cấu hình, lưu lại hash mới
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (userDetails, newEncodedPassword) -> {
+            User user = userRepository.findByEmail(userDetails.getUsername())
+                    .orElseThrow(() -> new UsernameNotFoundException("Không tìm thấy người dùng với email: " + userDetails.getUsername()));
+            user.setPassword(newEncodedPassword);
+            return userRepository.save(user);
+        };
     }
 
     // 3. Bean cung cấp cơ chế xác thực (dùng UserDetailsService và PasswordEncoder)
@@ -38,6 +55,7 @@ public class ApplicationConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authProvider;
     }
 
@@ -0,0 +1,33 @@
+package project.code.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bật rewriteBatchedStatements cho MySQL Connector/J: batch INSERT (batchUpdate của FleetReportService) được gửi
+ * thành một câu INSERT nhiều dòng thay vì một round-trip mỗi dòng; batch UPDATE (flush telemetry) được gửi chung
+ * một lần và vẫn có số dòng riêng cho từng câu.
+ * Đặt ở đây thay vì trong URL của application.properties (không được commit), để mọi môi trường đều có.
+ * Với batch INSERT đã gộp, driver trả SUCCESS_NO_INFO (-2) cho từng dòng nên không dùng số dòng trả về để đếm.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor mysqlBatchRewritePostProcessor(
+            @Value("${app.datasource.rewrite-batched-statements:true}") boolean rewriteBatchedStatements) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (rewriteBatchedStatements && bean instanceof HikariDataSource dataSource
+                        && dataSource.getJdbcUrl() != null && dataSource.getJdbcUrl().startsWith("jdbc:mysql:")) {
+                    dataSource.addDataSourceProperty("rewriteBatchedStatements", "true");
+                }
+                return bean;
+            }
+        };
+    }
+}
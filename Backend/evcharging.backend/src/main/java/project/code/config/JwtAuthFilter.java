@@ -5,6 +5,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import io.jsonwebtoken.Claims;
+import project.code.model.User;
+import project.code.model.enums.Role;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +33,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtConfig jwtService;
     private final UserDetailsService userDetailsService;
+    private final ActiveUserCache activeUserCache;
+
+    // true: dựng principal từ claims của token, không SELECT user mỗi request
+    @Value("${application.security.jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -54,16 +62,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            userEmail = jwtService.extractEmail(jwt);
+            // Parse + verify token đúng một lần, các bước sau chỉ đọc từ claims
+            final Claims claims = jwtService.extractAllClaims(jwt);
+            userEmail = claims.getSubject();
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
                 //Lấy UserDetails để kiểm tra token
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = resolvePrincipal(claims, userEmail);
+                if (userDetails == null) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
 
-                //Lấy Claims và Roles từ Token
-                final Claims claims = jwtService.extractAllClaims(jwt);
-                final List<String> roles = claims.get("roles", List.class);
+                //Lấy Roles từ Claims
+                final List<String> roles = readRoles(claims);
 
                 if (roles == null) {
                     logger.warn("JwtAuthFilter: Token for user {} does not contain 'roles' claim.", userEmail);
@@ -79,7 +92,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
 
                 // Kiểm tra token có hợp lệ không
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(claims, userDetails)) {
 
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -101,4 +114,37 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // Dựng principal từ claims; token cũ (chưa có claim uid) hoặc khi tắt chế độ stateless thì tra DB như trước
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        final Long userId = claims.get(JwtConfig.CLAIM_USER_ID, Long.class);
+        final List<String> roles = readRoles(claims);
+
+        if (!statelessPrincipal || userId == null || roles == null || roles.isEmpty()) {
+            return this.userDetailsService.loadUserByUsername(userEmail);
+        }
+
+        if (activeUserCache.isEnabled() && !activeUserCache.isActive(userId, userEmail)) {
+            logger.warn("JwtAuthFilter: User {} (id {}) no longer exists, token rejected.", userEmail, userId);
+            return null;
+        }
+
+        return User.builder()
+                .id(userId)
+                .email(userEmail)
+                .name(claims.get(JwtConfig.CLAIM_NAME, String.class))
+                .role(Role.valueOf(roles.get(0)))
+                .build();
+    }
+
+    // Claim roles là mảng JSON; đọc dạng List<?> rồi đổi từng phần tử sang String thay vì ép kiểu unchecked
+    private static List<String> readRoles(Claims claims) {
+        List<?> roles = claims.get("roles", List.class);
+        if (roles == null) {
+            return null;
+        }
+        return roles.stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -1,14 +1,17 @@
 package project.code.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import project.code.model.User;
 
 import java.security.Key;
 import java.util.Collection;
@@ -21,12 +24,30 @@ import java.util.stream.Collectors;
 
 @Service
 public class JwtConfig {
+
+    // Claim bổ sung để JwtAuthFilter dựng lại principal mà không cần tra DB
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_NAME = "name";
+
     @Value("${application.security.jwt.secret-key}")
     private String SECRET_KEY;
 
     @Value("${application.security.jwt.expiration-time}")
     private long EXPIRATION_TIME;
 
+    // Khóa và parser được dựng một lần khi khởi động; JwtParser là immutable nên dùng chung giữa các thread
+    private Key signInKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
+        this.signInKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
+
     // Trích xuất email từ token
     public String extractEmail(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -52,6 +73,11 @@ public class JwtConfig {
 
         extraClaims.put("roles", roles);
 
+        if (userDetails instanceof User user) {
+            extraClaims.put(CLAIM_USER_ID, user.getId());
+            extraClaims.put(CLAIM_NAME, user.getName());
+        }
+
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
@@ -63,30 +89,25 @@ public class JwtConfig {
 
     // Kiểm tra token có hợp lệ không
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        return (email.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Dùng claims đã parse sẵn, không parse/verify lại token
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        final String email = claims.getSubject();
+        return email != null && email.equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    // Trích xuất toàn bộ thông tin (claims) từ token
+    // Trích xuất toàn bộ thông tin (claims) từ token: verify chữ ký + hạn dùng trong một lần parse
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     // Lấy khóa bí mật để ký token
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signInKey;
     }
 }
\ No newline at end of file
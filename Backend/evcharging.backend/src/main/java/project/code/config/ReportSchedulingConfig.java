@@ -0,0 +1,67 @@
+package project.code.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import project.code.model.enums.ReportPeriod;
+import project.code.services.ScheduledReportService;
+
+/**
+ * Lịch tạo report tự động. Cron đặt qua reports.schedule.*-cron, dùng "-" để tắt một lịch.
+ * Các job report chạy trên scheduler riêng (không đăng ký làm bean), để một lần tạo report dài không chặn
+ * thread scheduler mặc định mà các job @Scheduled khác dùng chung.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class ReportSchedulingConfig {
+
+    private final ScheduledReportService scheduledReportService;
+
+    @Value("${reports.schedule.daily-cron:0 30 2 * * *}")
+    private String dailyCron;
+
+    @Value("${reports.schedule.weekly-cron:0 0 3 * * MON}")
+    private String weeklyCron;
+
+    @Value("${reports.schedule.monthly-cron:0 30 3 1 * *}")
+    private String monthlyCron;
+
+    @Value("${reports.schedule.pool-size:1}")
+    private int poolSize;
+
+    private ThreadPoolTaskScheduler reportScheduler;
+
+    @PostConstruct
+    public void start() {
+        reportScheduler = new ThreadPoolTaskScheduler();
+        reportScheduler.setPoolSize(poolSize);
+        reportScheduler.setThreadNamePrefix("report-scheduler-");
+        reportScheduler.setDaemon(true);
+        reportScheduler.initialize();
+
+        register(ReportPeriod.DAILY, dailyCron);
+        register(ReportPeriod.WEEKLY, weeklyCron);
+        register(ReportPeriod.MONTHLY, monthlyCron);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reportScheduler.shutdown();
+    }
+
+    private void register(ReportPeriod period, String cron) {
+        if (cron == null || cron.isBlank() || "-".equals(cron.trim())) {
+            return;
+        }
+        reportScheduler.schedule(
+                () -> scheduledReportService.runScheduled(period),
+                new CronTrigger(cron, scheduledReportService.zoneId())
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package project.code.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +33,8 @@ public class SecurityConfig {
 
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Stream SSE đã được xác thực ở request gốc; lượt dispatch ASYNC không mang lại JWT
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
 
                         .requestMatchers(PUBLIC_URLS).permitAll()
                         .anyRequest().authenticated()
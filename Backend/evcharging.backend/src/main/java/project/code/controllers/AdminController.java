@@ -3,6 +3,10 @@ package project.code.controllers;
 import project.code.dto.admin.CreateAdminRequest;
 import project.code.dto.admin.AdminResponseDto;
 import project.code.dto.UserSummaryDto;
+import project.code.dto.metrics.CacheStatsDto;
+import project.code.dto.metrics.ChatbotPipelineStatsDto;
+import project.code.dto.metrics.InvoiceOutboxStatsDto;
+import project.code.dto.metrics.LoginPipelineStatsDto;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +15,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import project.code.model.Admin;
 import project.code.services.AdminService;
+import project.code.services.CatalogCache;
+import project.code.services.ChatResponseCache;
+import project.code.services.GeminiClient;
+import project.code.services.InvoiceOutboxService;
+import project.code.services.PasswordHashingService;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +31,11 @@ import java.util.Optional;
 public class AdminController {
 
     private final AdminService adminService;
+    private final PasswordHashingService passwordHashingService;
+    private final InvoiceOutboxService invoiceOutboxService;
+    private final CatalogCache catalogCache;
+    private final GeminiClient geminiClient;
+    private final ChatResponseCache chatResponseCache;
 
     @GetMapping
     public ResponseEntity<List<AdminResponseDto>> getAllAdminProfiles() {
@@ -46,4 +60,35 @@ public class AdminController {
         return deleted ? ResponseEntity.ok("Đã xoá admin thành công")
                 : ResponseEntity.status(404).body("Không tìm thấy admin để xoá");
     }
+
+    @GetMapping("/metrics/login")
+    public ResponseEntity<LoginPipelineStatsDto> getLoginPipelineStats() {
+        return ResponseEntity.ok(passwordHashingService.getStats());
+    }
+
+    @GetMapping("/metrics/invoice-outbox")
+    public ResponseEntity<InvoiceOutboxStatsDto> getInvoiceOutboxStats() {
+        return ResponseEntity.ok(invoiceOutboxService.getStats());
+    }
+
+    @GetMapping("/metrics/catalog-cache")
+    public ResponseEntity<List<CacheStatsDto>> getCatalogCacheStats() {
+        return ResponseEntity.ok(catalogCache.getStats());
+    }
+
+    @GetMapping("/metrics/chatbot")
+    public ResponseEntity<ChatbotPipelineStatsDto> getChatbotPipelineStats() {
+        return ResponseEntity.ok(geminiClient.getStats());
+    }
+
+    @GetMapping("/metrics/chatbot-cache")
+    public ResponseEntity<CacheStatsDto> getChatbotCacheStats() {
+        return ResponseEntity.ok(chatResponseCache.getStats());
+    }
+
+    // Đưa các yêu cầu tạo hóa đơn đã hết lượt retry về hàng đợi
+    @PostMapping("/invoice-outbox/requeue-failed")
+    public ResponseEntity<Integer> requeueFailedInvoices() {
+        return ResponseEntity.ok(invoiceOutboxService.requeueFailed());
+    }
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ import project.code.dto.LoginResponse;
 import project.code.dto.RegisterRequest;
 import project.code.services.AuthService;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -19,17 +21,18 @@ public class AuthController {
 
     private final AuthService authService;
 
+    // Trả về CompletableFuture: thread Tomcat được nhả ra trong lúc BCrypt chạy trên pool riêng
     @PostMapping("/register")
-    public ResponseEntity<LoginResponse> register(
+    public CompletableFuture<ResponseEntity<LoginResponse>> register(
             @Valid @RequestBody RegisterRequest request
     ) {
-        return ResponseEntity.ok(authService.register(request));
+        return authService.register(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(
             @Valid @RequestBody LoginRequest request
     ) {
-        return ResponseEntity.ok(authService.login(request));
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
 }
\ No newline at end of file
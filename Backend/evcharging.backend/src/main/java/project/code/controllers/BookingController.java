@@ -1,6 +1,7 @@
 package project.code.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -12,6 +13,8 @@ import project.code.dto.booking.BookingDto;
 import project.code.dto.booking.CreateBookingRequest;
 
 import jakarta.validation.Valid;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -38,6 +41,21 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getMyBookings(user));
     }
 
+    // Khung giờ trống của các điểm sạc trong trạm, ví dụ ?stationId=1&from=2025-01-01T08:00:00&to=2025-01-01T20:00:00&minMinutes=30
+    @GetMapping("/availability")
+    public ResponseEntity<?> getStationAvailability(
+            @RequestParam Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "30") long minMinutes) {
+        try {
+            return ResponseEntity.ok(bookingService.getStationAvailability(
+                    stationId, from, to, Duration.ofMinutes(Math.max(minMinutes, 1))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/{bookingId}/cancel")
     public ResponseEntity<?> cancelBooking(@PathVariable Long bookingId) {
         try {
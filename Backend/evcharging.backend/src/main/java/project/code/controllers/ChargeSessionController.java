@@ -1,16 +1,28 @@
 package project.code.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import project.code.services.ChargeSessionService;
+import project.code.services.ChargeSessionStreamService;
+import project.code.services.ChargeSessionTelemetryService;
 
 import project.code.dto.session.ChargeSessionDto;
+import project.code.dto.session.ChargeSessionFilter;
+import project.code.dto.session.ChargeSessionPageDto;
 import project.code.dto.session.CreateChargeSessionRequest;
+import project.code.dto.session.LiveSessionDto;
+import project.code.dto.session.TelemetrySampleRequest;
 import project.code.dto.session.StopChargeSessionRequest;
 import project.code.model.ChargeSession;
+import project.code.model.enums.SessionStatus;
 import jakarta.validation.Valid;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,12 +32,43 @@ import java.util.Optional;
 public class ChargeSessionController {
 
     private final ChargeSessionService service;
+    private final ChargeSessionTelemetryService telemetryService;
+    private final ChargeSessionStreamService streamService;
 
     @GetMapping
     public ResponseEntity<List<ChargeSessionDto>> getAll() {
         return ResponseEntity.ok(service.getAll());
     }
 
+    // GET /api/charge-sessions/page?stationId=&driverId=&status=&from=&to=&cursor=&size=
+    @GetMapping("/page")
+    public ResponseEntity<ChargeSessionPageDto> getPage(
+            @RequestParam(required = false) Long stationId,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(required = false) SessionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size) {
+        ChargeSessionFilter filter = new ChargeSessionFilter(stationId, driverId, status, from, to);
+        return ResponseEntity.ok(service.getPage(filter, cursor, size));
+    }
+
+    // Xuất toàn bộ kết quả lọc dạng NDJSON, ghi dần ra response
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) Long stationId,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(required = false) SessionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ChargeSessionFilter filter = new ChargeSessionFilter(stationId, driverId, status, from, to);
+        StreamingResponseBody body = out -> service.exportNdjson(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ChargeSessionDto> getById(@PathVariable Long id) {
         return service.getById(id)
@@ -33,6 +76,32 @@ public class ChargeSessionController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/live")
+    public ResponseEntity<LiveSessionDto> getLive(@PathVariable Long id) {
+        return service.getLive(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Stream SSE: đẩy trạng thái/kWh/chi phí/thời gian mỗi khi thay đổi, thay cho việc client poll
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable Long id) {
+        return service.getLive(id)
+                .map(initial -> ResponseEntity.ok(streamService.subscribe(id, initial, () -> service.getLive(id))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Trụ sạc gửi chỉ số công tơ định kỳ trong lúc phiên ACTIVE
+    @PostMapping("/{id}/telemetry")
+    public ResponseEntity<?> pushTelemetry(@PathVariable Long id,
+                                           @Valid @RequestBody TelemetrySampleRequest request) {
+        try {
+            return ResponseEntity.accepted().body(telemetryService.recordSample(id, request));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/start")
     public ResponseEntity<?> startSession(@Valid @RequestBody CreateChargeSessionRequest request) {
         try {
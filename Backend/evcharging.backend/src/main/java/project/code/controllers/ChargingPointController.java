@@ -1,9 +1,12 @@
 package project.code.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import project.code.services.CatalogCache;
 import project.code.services.ChargingPointService;
 
 import project.code.dto.chargingpoint.ChargingPointDto;
@@ -20,9 +23,18 @@ public class ChargingPointController {
 
     private final ChargingPointService service;
 
+    // Client gửi lại ETag qua If-None-Match; danh mục không đổi thì trả 304 không kèm body
     @GetMapping
-    public ResponseEntity<List<ChargingPointDto>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<ChargingPointDto>> getAll(WebRequest webRequest) {
+        CatalogCache.Snapshot<ChargingPointDto> catalog = service.getCatalog();
+        String etag = "\"" + catalog.etag() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(catalog.items());
     }
 
     @GetMapping("/{id}")
@@ -1,13 +1,18 @@
 package project.code.controllers;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import project.code.model.ChargingStation.StationStatus;
+import project.code.model.enums.ConnectorType;
+import project.code.services.CatalogCache;
 import project.code.services.ChargingStationService;
 
 import project.code.dto.station.ChargingStationDto;
 import project.code.dto.station.CreateStationRequest;
+import project.code.dto.station.NearbyStationDto;
 import project.code.dto.station.UpdateStationRequest;
 import jakarta.validation.Valid; // Import Valid
 
@@ -21,9 +26,38 @@ public class ChargingStationController {
 
     private final ChargingStationService service;
 
+    // Client gửi lại ETag qua If-None-Match; danh mục không đổi thì trả 304 không kèm body
     @GetMapping
-    public ResponseEntity<List<ChargingStationDto>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<ChargingStationDto>> getAll(WebRequest webRequest) {
+        CatalogCache.Snapshot<ChargingStationDto> catalog = service.getCatalog();
+        String etag = "\"" + catalog.etag() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(catalog.items());
+    }
+
+    // Trạm còn điểm sạc trống, ví dụ /available?connectorType=CCS
+    @GetMapping("/available")
+    public ResponseEntity<List<ChargingStationDto>> getWithAvailable(@RequestParam(required = false) ConnectorType connectorType) {
+        return ResponseEntity.ok(service.getWithAvailable(connectorType));
+    }
+
+    // Trạm gần nhất còn điểm sạc trống, ví dụ /nearby?lat=10.77&lng=106.70&radiusKm=5&connectorType=CCS&limit=10
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyStationDto>> findNearby(@RequestParam double lat,
+                                                             @RequestParam double lng,
+                                                             @RequestParam(defaultValue = "10") double radiusKm,
+                                                             @RequestParam(required = false) ConnectorType connectorType,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(service.findNearby(lat, lng, radiusKm, connectorType, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -2,18 +2,22 @@ package project.code.controllers;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import project.code.dto.chatbot.ChatMessageRequest;
 import project.code.dto.chatbot.ChatMessageResponse;
 import project.code.dto.chatbot.ChatHistoryDto;
+import project.code.dto.chatbot.ChatHistoryPageDto;
 import project.code.model.User;
 import project.code.services.ChatbotService;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/chatbot")
@@ -23,17 +27,24 @@ public class ChatbotController {
 
     private final ChatbotService chatbotService;
 
+    // Trả về CompletableFuture: thread Tomcat được nhả ra trong lúc chờ Gemini, response gửi khi future hoàn tất
     @PostMapping("/chat")
-    public ResponseEntity<ChatMessageResponse> sendMessage(
+    public CompletableFuture<ResponseEntity<ChatMessageResponse>> sendMessage(
             @Valid @RequestBody ChatMessageRequest request) {
         User currentUser = getCurrentUser();
-        
-        String response = chatbotService.chat(currentUser, request.message());
-        
-        return ResponseEntity.ok(new ChatMessageResponse(
-                response,
-                System.currentTimeMillis()
-        ));
+
+        return chatbotService.chat(currentUser, request.message())
+                .thenApply(response -> ResponseEntity.ok(new ChatMessageResponse(
+                        response,
+                        System.currentTimeMillis()
+                )));
+    }
+
+    // Trả lời dạng SSE: event "chunk" cho từng đoạn text, "done" kèm câu trả lời đầy đủ, "error" khi lỗi
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@Valid @RequestBody ChatMessageRequest request) {
+        User currentUser = getCurrentUser();
+        return chatbotService.chatStream(currentUser, request.message());
     }
 
     @GetMapping("/history")
@@ -43,6 +54,15 @@ public class ChatbotController {
         return ResponseEntity.ok(history);
     }
 
+    // Phân trang keyset: truyền nextCursor của trang trước vào cursor để lấy các tin nhắn cũ hơn
+    @GetMapping("/history/page")
+    public ResponseEntity<ChatHistoryPageDto> getChatHistoryPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size) {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(chatbotService.getChatHistoryPage(currentUser, cursor, size));
+    }
+
     @DeleteMapping("/history")
     public ResponseEntity<Void> clearChatHistory() {
         User currentUser = getCurrentUser();
@@ -11,6 +11,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import project.code.dto.wallet.WalletBalanceApiResponse;
 import project.code.dto.wallet.WalletTopUpRequest;
+import project.code.dto.wallet.WalletTransactionDto;
 import project.code.model.User;
 import project.code.services.EVDriverService;
 
@@ -94,12 +95,13 @@ public class EVDriverController {
 
     @PostMapping("/me/wallet/top-up")
     public ResponseEntity<WalletBalanceApiResponse> topUpWallet(
-            @Valid @RequestBody WalletTopUpRequest request) {
+            @Valid @RequestBody WalletTopUpRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         User currentUser = getCurrentUser();
 
         try {
-            WalletBalanceApiResponse updatedBalance = evDriverService.topUpWallet(currentUser, request);
+            WalletBalanceApiResponse updatedBalance = evDriverService.topUpWallet(currentUser, request, idempotencyKey);
 
             System.out.println("--- DEBUG: Service 'topUpWallet' đã thực thi thành công.");
 
@@ -111,6 +113,14 @@ public class EVDriverController {
         }
     }
 
+    @GetMapping("/me/wallet/transactions")
+    public ResponseEntity<List<WalletTransactionDto>> getWalletTransactions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(evDriverService.getWalletTransactions(currentUser, page, size));
+    }
+
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof User)) {
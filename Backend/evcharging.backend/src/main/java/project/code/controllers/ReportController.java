@@ -4,12 +4,19 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import project.code.model.enums.ReportPeriod;
 import project.code.model.enums.ReportType;
+import project.code.services.FleetReportService;
 import project.code.services.ReportService;
+import project.code.services.ScheduledReportService;
+import project.code.services.StationHourlyStatsService;
+import project.code.dto.report.FleetReportResultDto;
+import project.code.dto.report.GenerateFleetReportRequest;
 import project.code.dto.report.GenerateReportRequest;
 import project.code.dto.report.ReportDto;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +28,9 @@ import java.util.Optional;
 public class ReportController {
 
     private final ReportService reportService;
+    private final StationHourlyStatsService hourlyStatsService;
+    private final FleetReportService fleetReportService;
+    private final ScheduledReportService scheduledReportService;
 
     @GetMapping
     public ResponseEntity<List<ReportDto>> getAllReports() {
@@ -89,6 +99,44 @@ public class ReportController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> generateFleetReports(
+            @Valid @RequestBody GenerateFleetReportRequest request) {
+        try {
+            FleetReportResultDto result = fleetReportService.generateForAllStations(
+                    request.reportTypes(), request.periodStart(), request.periodEnd());
+            return ResponseEntity.status(201).body(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Chạy tay lịch tạo report (vd: bù cho ngày bị lỡ). Không tạo trùng nếu report của kỳ đã có.
+    @PostMapping("/scheduled/{period}")
+    public ResponseEntity<?> runScheduledReports(
+            @PathVariable ReportPeriod period,
+            @RequestParam(required = false) LocalDate asOf) {
+        try {
+            FleetReportResultDto result = scheduledReportService.generateForPreviousPeriod(
+                    period, asOf != null ? asOf : scheduledReportService.today());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/hourly-stats/rebuild")
+    public ResponseEntity<String> rebuildHourlyStats(@RequestParam(required = false) Long stationId) {
+        try {
+            int buckets = stationId != null
+                    ? hourlyStatsService.rebuildStation(stationId)
+                    : hourlyStatsService.rebuildAll();
+            return ResponseEntity.ok("Đã dựng lại " + buckets + " bucket thống kê theo giờ");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/top-revenue")
     public ResponseEntity<ReportDto> getTopRevenueReport() {
         return reportService.getTopRevenueReport()
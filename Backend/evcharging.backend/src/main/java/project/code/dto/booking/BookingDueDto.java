@@ -0,0 +1,8 @@
+package project.code.dto.booking;
+
+import java.time.LocalDateTime;
+
+public record BookingDueDto(
+        Long bookingId,
+        LocalDateTime dueAt
+) {}
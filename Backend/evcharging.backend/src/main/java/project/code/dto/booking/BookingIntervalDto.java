@@ -0,0 +1,10 @@
+package project.code.dto.booking;
+
+import java.time.LocalDateTime;
+
+public record BookingIntervalDto(
+        Long bookingId,
+        Long chargingPointId,
+        LocalDateTime startTime,
+        LocalDateTime endTime
+) {}
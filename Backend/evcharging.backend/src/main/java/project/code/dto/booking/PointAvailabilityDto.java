@@ -0,0 +1,14 @@
+package project.code.dto.booking;
+
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
+
+import java.util.List;
+
+public record PointAvailabilityDto(
+        Long chargingPointId,
+        ConnectorType type,
+        double power,
+        ChargingPointStatus status,
+        List<TimeSlotDto> freeSlots
+) {}
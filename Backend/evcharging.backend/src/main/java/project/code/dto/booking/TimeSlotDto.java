@@ -0,0 +1,8 @@
+package project.code.dto.booking;
+
+import java.time.LocalDateTime;
+
+public record TimeSlotDto(
+        LocalDateTime start,
+        LocalDateTime end
+) {}
@@ -0,0 +1,10 @@
+package project.code.dto.chatbot;
+
+import java.util.List;
+
+// Một trang lịch sử chat (mới trước): nextCursor là id cuối cùng, truyền lại qua ?cursor= để lấy trang cũ hơn
+public record ChatHistoryPageDto(
+    List<ChatHistoryDto> items,
+    Long nextCursor,
+    boolean hasMore
+) {}
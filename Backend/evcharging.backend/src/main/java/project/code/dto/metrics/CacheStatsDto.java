@@ -0,0 +1,13 @@
+package project.code.dto.metrics;
+
+public record CacheStatsDto(
+        String name,
+        int size,
+        int maxEntries,
+        long ttlSeconds,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions,
+        long invalidations
+) {}
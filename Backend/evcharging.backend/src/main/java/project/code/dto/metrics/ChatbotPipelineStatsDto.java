@@ -0,0 +1,15 @@
+package project.code.dto.metrics;
+
+public record ChatbotPipelineStatsDto(
+        int maxConcurrentCalls,
+        int inFlightCalls,
+        long completed,
+        long failed,
+        long rejected,
+        long timedOut,
+        long cancelled,
+        double avgLatencyMillis,
+        long maxLatencyMillis,
+        double avgTimeToFirstChunkMillis,
+        long maxTimeToFirstChunkMillis
+) {}
@@ -0,0 +1,18 @@
+package project.code.dto.metrics;
+
+import java.time.LocalDateTime;
+
+public record InvoiceOutboxStatsDto(
+        long pending,
+        long failed,
+        long oldestPendingAgeSeconds,
+        long invoicesCreated,
+        long retries,
+        long permanentFailures,
+        long missingSessions,
+        double avgLagMillis,
+        long maxLagMillis,
+        int lastBatchSize,
+        LocalDateTime lastRunAt
+) {
+}
@@ -0,0 +1,15 @@
+package project.code.dto.metrics;
+
+public record LoginPipelineStatsDto(
+        int workerThreads,
+        int activeWorkers,
+        int queueDepth,
+        int queueCapacity,
+        long completed,
+        long failed,
+        long rejected,
+        long timedOut,
+        double avgQueueWaitMillis,
+        double avgLatencyMillis,
+        long maxLatencyMillis
+) {}
@@ -0,0 +1,14 @@
+package project.code.dto.report;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record FleetReportResultDto(
+        LocalDateTime periodStart,
+        LocalDateTime periodEnd,
+        int stationCount,
+        int reportsCreated,
+        int reportsUpdated,
+        long elapsedMillis,
+        List<StationReportTimingDto> stations
+) {}
@@ -0,0 +1,19 @@
+package project.code.dto.report;
+
+import jakarta.validation.constraints.NotNull;
+import project.code.model.enums.ReportType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record GenerateFleetReportRequest(
+
+        // Bỏ trống = tạo cả REVENUE và USAGE
+        List<ReportType> reportTypes,
+
+        @NotNull(message = "Ngày bắt đầu không được để trống")
+        LocalDateTime periodStart,
+
+        @NotNull(message = "Ngày kết thúc không được để trống")
+        LocalDateTime periodEnd
+) {}
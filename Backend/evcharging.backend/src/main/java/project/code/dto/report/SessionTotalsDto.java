@@ -0,0 +1,7 @@
+package project.code.dto.report;
+
+public record SessionTotalsDto(
+        Long totalSessions,
+        Double totalEnergy,
+        Double totalRevenue
+) {}
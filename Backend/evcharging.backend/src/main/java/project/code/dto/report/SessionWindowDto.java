@@ -0,0 +1,11 @@
+package project.code.dto.report;
+
+import java.time.LocalDateTime;
+
+public record SessionWindowDto(
+        Long sessionId,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        Double energyUsed,
+        Double cost
+) {}
@@ -0,0 +1,10 @@
+package project.code.dto.report;
+
+public record StationReportTimingDto(
+        Long stationId,
+        long elapsedMillis,
+        int totalSessions,
+        double totalEnergy,
+        double totalRevenue,
+        String error
+) {}
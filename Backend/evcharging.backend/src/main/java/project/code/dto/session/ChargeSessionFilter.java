@@ -0,0 +1,13 @@
+package project.code.dto.session;
+
+import project.code.model.enums.SessionStatus;
+import java.time.LocalDateTime;
+
+// Bộ lọc cho danh sách phiên sạc; trường null = không lọc. from/to so với startTime, khoảng [from, to)
+public record ChargeSessionFilter(
+        Long stationId,
+        Long driverId,
+        SessionStatus status,
+        LocalDateTime from,
+        LocalDateTime to
+) {}
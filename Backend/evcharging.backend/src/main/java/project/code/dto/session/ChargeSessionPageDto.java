@@ -0,0 +1,10 @@
+package project.code.dto.session;
+
+import java.util.List;
+
+// Một trang theo keyset: nextCursor là sessionId cuối cùng, truyền lại qua ?cursor= để lấy trang kế
+public record ChargeSessionPageDto(
+        List<ChargeSessionDto> items,
+        Long nextCursor,
+        boolean hasMore
+) {}
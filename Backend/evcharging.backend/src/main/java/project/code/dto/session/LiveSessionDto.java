@@ -0,0 +1,16 @@
+package project.code.dto.session;
+
+import project.code.model.enums.SessionStatus;
+import java.time.LocalDateTime;
+
+public record LiveSessionDto(
+        Long sessionId,
+        SessionStatus status,
+        double energyUsed,
+        double cost,
+        Double powerKw,
+        Double stateOfCharge,
+        long elapsedSeconds,
+        long sampleCount,
+        LocalDateTime lastSampleAt
+) {}
@@ -0,0 +1,20 @@
+package project.code.dto.session;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+public record TelemetrySampleRequest(
+
+        // Chỉ số công tơ tích lũy từ đầu phiên (kWh)
+        @NotNull(message = "Năng lượng không được để trống")
+        @PositiveOrZero
+        Double energyKwh,
+
+        @PositiveOrZero
+        Double powerKw,
+
+        @PositiveOrZero
+        @Max(100)
+        Double stateOfCharge
+) {}
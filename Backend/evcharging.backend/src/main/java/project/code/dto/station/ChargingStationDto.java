@@ -7,6 +7,8 @@ public record ChargingStationDto(
         Long stationId,
         String name,
         String location,
+        Double latitude,
+        Double longitude,
         StationStatus status,
         int totalChargingPoint,
         int availableChargers
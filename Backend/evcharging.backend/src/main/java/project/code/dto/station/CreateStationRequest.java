@@ -1,5 +1,7 @@
 package project.code.dto.station;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import project.code.model.ChargingStation.StationStatus;
@@ -12,12 +14,12 @@ public record CreateStationRequest(
         @NotBlank(message = "Vị trí không được để trống")
         String location,
 
-        @NotNull(message = "Trạng thái không được để trống")
-        StationStatus status,
+        @DecimalMin("-90.0") @DecimalMax("90.0")
+        Double latitude,
 
-        @NotNull
-        Integer totalChargingPoint,
+        @DecimalMin("-180.0") @DecimalMax("180.0")
+        Double longitude,
 
-        @NotNull
-        Integer availableChargers
+        @NotNull(message = "Trạng thái không được để trống")
+        StationStatus status
 ) {}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package project.code.dto.station;
+
+import project.code.model.ChargingStation.StationStatus;
+
+public record NearbyStationDto(
+        Long stationId,
+        String name,
+        String location,
+        StationStatus status,
+        double latitude,
+        double longitude,
+        double distanceKm,
+        int availableChargers
+) {}
@@ -0,0 +1,11 @@
+package project.code.dto.station;
+
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
+
+public record PointStatusCountDto(
+        Long stationId,
+        ConnectorType type,
+        ChargingPointStatus status,
+        Long count
+) {}
@@ -0,0 +1,10 @@
+package project.code.dto.station;
+
+import project.code.model.ChargingStation.StationStatus;
+
+public record StationLocationDto(
+        Long stationId,
+        Double latitude,
+        Double longitude,
+        StationStatus status
+) {}
@@ -1,5 +1,7 @@
 package project.code.dto.station;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import project.code.model.ChargingStation.StationStatus;
@@ -12,12 +14,15 @@ public record UpdateStationRequest(
         @NotBlank(message = "Vị trí không được để trống")
         String location,
 
+        @DecimalMin("-90.0") @DecimalMax("90.0")
+        Double latitude,
+
+        @DecimalMin("-180.0") @DecimalMax("180.0")
+        Double longitude,
+
         @NotNull(message = "Trạng thái không được để trống")
         StationStatus status,
 
-        @NotNull
-        Integer totalChargingPoint,
-
-        @NotNull
-        Integer availableChargers
+        // true: xóa tọa độ của trạm (trạm không còn xuất hiện trong tìm kiếm theo vị trí); null = false
+        Boolean clearLocation
 ) {}
\ No newline at end of file
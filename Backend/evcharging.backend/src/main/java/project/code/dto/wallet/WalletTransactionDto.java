@@ -0,0 +1,15 @@
+package project.code.dto.wallet;
+
+import project.code.model.enums.WalletTransactionType;
+
+import java.time.LocalDateTime;
+
+public record WalletTransactionDto(
+        Long transactionId,
+        WalletTransactionType type,
+        double amount,
+        double balanceAfter,
+        Long referenceId,
+        LocalDateTime createdAt
+) {
+}
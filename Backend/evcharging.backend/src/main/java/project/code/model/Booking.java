@@ -6,7 +6,8 @@ import project.code.model.enums.BookingStatus;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+        indexes = @Index(name = "idx_bookings_status_expires_at", columnList = "status, expires_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,4 +39,9 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private BookingStatus status;
+
+    // Hạn xử lý tự động: PENDING quá hạn bị hủy, CONFIRMED quá hạn (không đến sạc) thành NO_SHOW;
+    // CONFIRMED đã đến sạc thì hạn được dời tới end_time và khi đó mới COMPLETED
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
 }
\ No newline at end of file
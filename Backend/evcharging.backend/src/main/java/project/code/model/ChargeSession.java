@@ -10,7 +10,13 @@ import lombok.NoArgsConstructor;
 import project.code.model.enums.SessionStatus;
 
 @Entity
-@Table(name = "charge_sessions")
+@Table(name = "charge_sessions",
+        indexes = {
+                // Trang keyset lọc theo trạng thái: WHERE status = ? AND session_id < ? ORDER BY session_id DESC
+                @Index(name = "idx_charge_sessions_status_id", columnList = "status, session_id"),
+                // Khoảng thời gian hẹp/cũ: MySQL quét theo start_time rồi sắp xếp phần nhỏ còn lại
+                @Index(name = "idx_charge_sessions_start_time", columnList = "start_time")
+        })
 @Data
 @Builder
 @NoArgsConstructor
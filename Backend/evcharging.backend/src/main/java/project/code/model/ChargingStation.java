@@ -30,11 +30,19 @@ public class ChargingStation {
     @Column(nullable = false)
     private String location;
 
+    // Tọa độ WGS84; null với các trạm chưa được cập nhật vị trí
+    @Column
+    private Double latitude;
+
+    @Column
+    private Double longitude;
+
 
     @Enumerated(EnumType.STRING)
     @Column(length = 100, nullable = false)
     private StationStatus status;
 
+    // Cột cũ, không còn cập nhật: số cổng tổng/trống lấy từ StationAvailabilityCounters
     @Column(name="total_charging_point")
     private int totalChargingPoint;
 
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "chat_history")
+@Table(name = "chat_history", indexes = {
+        @Index(name = "idx_chat_history_driver_id", columnList = "driver_id, id"),
+        @Index(name = "idx_chat_history_timestamp", columnList = "timestamp")
+})
 public class ChatHistory {
 
     @Id
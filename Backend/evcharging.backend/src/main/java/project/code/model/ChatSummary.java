@@ -0,0 +1,29 @@
+package project.code.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Bản tóm tắt hội thoại cuốn chiếu của một tài xế: gộp các lượt chat có id <= lastHistoryId
+@Entity
+@Table(name = "chat_summaries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSummary {
+
+    @Id
+    @Column(name = "driver_id")
+    private Long driverId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String summary;
+
+    @Column(name = "last_history_id", nullable = false)
+    private Long lastHistoryId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
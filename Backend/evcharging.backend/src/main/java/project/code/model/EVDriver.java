@@ -28,7 +28,9 @@ public class EVDriver {
     @Column(name="phone_number", length = 10)
     private String phoneNumber;
 
-    @Column(name = "wallet_balance", nullable = false)
+    // Chỉ được ghi qua EVDriverRepository.incrementWalletBalance (WalletService); save() của entity không được
+    // ghi đè số dư đã đọc từ trước lên một lần nạp/trừ tiền vừa commit
+    @Column(name = "wallet_balance", nullable = false, updatable = false)
     private double walletBalance;
 
     @OneToMany(mappedBy = "driver", cascade = CascadeType.ALL)
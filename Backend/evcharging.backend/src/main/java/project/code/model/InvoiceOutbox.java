@@ -0,0 +1,46 @@
+package project.code.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import project.code.model.enums.OutboxStatus;
+
+import java.time.LocalDateTime;
+
+// Yêu cầu tạo hóa đơn, ghi cùng transaction với stopSession; InvoiceOutboxService.dispatch xử lý sau
+@Entity
+@Table(name = "invoice_outbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_invoice_outbox_session", columnNames = "session_id"),
+        indexes = @Index(name = "idx_invoice_outbox_due", columnList = "status, next_attempt_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -6,7 +6,11 @@ import lombok.*;
 import project.code.model.enums.ReportType; // <-- (1) Import Enum
 
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", uniqueConstraints = {
+        // Mỗi trạm chỉ có một report cho mỗi loại và kỳ; job tạo report dựa vào khóa này để chạy lại an toàn
+        @UniqueConstraint(name = "uk_reports_station_type_period",
+                columnNames = {"station_id", "report_type", "period_start", "period_end"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,40 @@
+package project.code.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "station_hourly_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"station_id", "bucket_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StationHourlyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "station_id", nullable = false)
+    private ChargingStation station;
+
+    // Đầu giờ của bucket (vd: 2024-05-01T13:00)
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "total_sessions", nullable = false)
+    private int totalSessions;
+
+    @Column(name = "total_energy", nullable = false)
+    private double totalEnergy;
+
+    @Column(name = "total_revenue", nullable = false)
+    private double totalRevenue;
+
+    @Column(name = "busy_minutes", nullable = false)
+    private double busyMinutes;
+}
@@ -0,0 +1,48 @@
+package project.code.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import project.code.model.enums.WalletTransactionType;
+
+import java.time.LocalDateTime;
+
+// Sổ cái ví: chỉ thêm, không sửa/xóa. amount có dấu (+ nạp, - trừ tiền sạc).
+@Entity
+@Table(name = "wallet_transactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_tx_idempotency", columnNames = "idempotency_key"),
+        indexes = @Index(name = "idx_wallet_tx_driver", columnList = "driver_id, transaction_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "driver_id", nullable = false, updatable = false)
+    private EVDriver driver;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50, updatable = false)
+    private WalletTransactionType type;
+
+    @Column(nullable = false, updatable = false)
+    private double amount;
+
+    @Column(name = "balance_after", nullable = false, updatable = false)
+    private double balanceAfter;
+
+    @Column(name = "idempotency_key", nullable = false, length = 150, updatable = false)
+    private String idempotencyKey;
+
+    // ID đối tượng gây ra giao dịch (sessionId, paymentMethodId...)
+    @Column(name = "reference_id", updatable = false)
+    private Long referenceId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package project.code.model.enums;
+
+public enum ReportPeriod {
+    DAILY,
+    WEEKLY,
+    MONTHLY
+}
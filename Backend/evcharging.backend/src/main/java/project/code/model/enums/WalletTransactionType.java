@@ -0,0 +1,7 @@
+package project.code.model.enums;
+
+public enum WalletTransactionType {
+    TOP_UP,
+    CHARGE_PAYMENT,
+    ADJUSTMENT
+}
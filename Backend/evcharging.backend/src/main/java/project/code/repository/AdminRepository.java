@@ -1,7 +1,10 @@
 package project.code.repository;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import project.code.model.Admin;
 import project.code.model.User;
@@ -10,4 +13,8 @@ import project.code.model.User;
 public interface AdminRepository extends JpaRepository <Admin, Long> {
     Optional<Admin> findByUserAccount(User userAccount);
     Optional<Admin> findByUserAccount_Id(Long userId);
+
+    @EntityGraph(attributePaths = "userAccount")
+    @Query("SELECT a FROM Admin a")
+    List<Admin> findAllWithUser();
 }
@@ -1,27 +1,59 @@
 package project.code.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
+import project.code.dto.booking.BookingDueDto;
+import project.code.dto.booking.BookingIntervalDto;
 import project.code.model.Booking;
-import project.code.model.ChargingPoint;
 import project.code.model.ChargingStation;
 import project.code.model.EVDriver;
 import project.code.model.enums.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    // mapToDto đọc tên trạm: nạp station cùng câu truy vấn để tránh N+1
+    @EntityGraph(attributePaths = "station")
     List<Booking> findByDriver(EVDriver driver);
 
-    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b " +
-            "WHERE b.chargingPoint = :point " +
-            "AND b.status IN ('PENDING', 'CONFIRMED') " +
-            "AND b.startTime < :endTime AND b.endTime > :startTime")
-    boolean existsOverlappingBooking(ChargingPoint point, LocalDateTime startTime, LocalDateTime endTime);
-
+    @EntityGraph(attributePaths = "station")
     List<Booking> findByChargingPoint_Station(ChargingStation station);
+
+    // Nạp các booking còn hiệu lực vào BookingAvailabilityIndex
+    @Query("SELECT new project.code.dto.booking.BookingIntervalDto(" +
+            "b.id, b.chargingPoint.chargingPointId, b.startTime, b.endTime) " +
+            "FROM Booking b WHERE b.status IN :statuses AND b.endTime > :after")
+    List<BookingIntervalDto> findIntervalsByStatusInAndEndTimeAfter(Collection<BookingStatus> statuses, LocalDateTime after);
+
+    // Chỉ mục hạn xử lý lưu trong DB; BookingExpiryService nạp phần sắp đến hạn vào timer wheel
+    @Query("SELECT new project.code.dto.booking.BookingDueDto(b.id, b.expiresAt) " +
+            "FROM Booking b WHERE b.status IN :statuses AND b.expiresAt <= :until ORDER BY b.expiresAt")
+    List<BookingDueDto> findDueBefore(Collection<BookingStatus> statuses, LocalDateTime until, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id IN :ids AND b.status IN :statuses AND b.expiresAt <= :now")
+    List<Booking> lockExpired(Collection<Long> ids, Collection<BookingStatus> statuses, LocalDateTime now);
+
+    // Booking có phiên sạc của cùng tài xế trên cùng điểm trong khung giờ đặt (tức là tài xế đã đến)
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :ids AND EXISTS (" +
+            "SELECT s.sessionId FROM ChargeSession s WHERE s.driver = b.driver AND s.chargingPoint = b.chargingPoint " +
+            "AND s.startTime <= b.expiresAt AND (s.endTime IS NULL OR s.endTime >= b.startTime))")
+    List<Long> findIdsWithSessionDuringSlot(Collection<Long> ids);
+
+    // Gán hạn cho booking tạo trước khi có cột expires_at
+    @Modifying
+    @Query(value = "UPDATE bookings SET expires_at = CASE WHEN status = 'CONFIRMED' " +
+            "THEN DATE_ADD(start_time, INTERVAL :noShowGraceMinutes MINUTE) ELSE start_time END " +
+            "WHERE expires_at IS NULL AND status IN ('PENDING', 'CONFIRMED')", nativeQuery = true)
+    int backfillExpiresAt(long noShowGraceMinutes);
 }
\ No newline at end of file
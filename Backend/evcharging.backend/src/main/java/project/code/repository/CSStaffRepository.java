@@ -1,12 +1,20 @@
 package project.code.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import project.code.model.CSStaff;
 import project.code.model.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CSStaffRepository extends JpaRepository<CSStaff, Long> {
     Optional<CSStaff> findByUserAccount(User user);
     Optional<CSStaff> findByUserAccount_Id(Long userId);
+
+    // Danh sách nhân viên kèm tài khoản và trạm trong một câu JOIN
+    @EntityGraph(attributePaths = {"userAccount", "stationAssigned"})
+    @Query("SELECT s FROM CSStaff s")
+    List<CSStaff> findAllWithUserAndStation();
 }
\ No newline at end of file
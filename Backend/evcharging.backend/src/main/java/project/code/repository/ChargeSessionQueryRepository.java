@@ -0,0 +1,12 @@
+package project.code.repository;
+
+import project.code.dto.session.ChargeSessionDto;
+import project.code.dto.session.ChargeSessionFilter;
+
+import java.util.List;
+
+public interface ChargeSessionQueryRepository {
+
+    // Phiên mới nhất trước (sessionId giảm dần), chỉ lấy các phiên có sessionId < beforeId nếu beforeId khác null
+    List<ChargeSessionDto> findPage(ChargeSessionFilter filter, Long beforeId, int limit);
+}
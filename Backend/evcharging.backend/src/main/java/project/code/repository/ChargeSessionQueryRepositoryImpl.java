@@ -0,0 +1,63 @@
+package project.code.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import project.code.dto.session.ChargeSessionDto;
+import project.code.dto.session.ChargeSessionFilter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Truy vấn danh sách phiên sạc theo keyset, chiếu thẳng vào ChargeSessionDto (không nạp entity, không N+1).
+ * Chỉ thêm điều kiện cho bộ lọc có giá trị, để MySQL chọn được index khớp với ORDER BY session_id DESC:
+ * station_id/driver_id (index khóa ngoại, InnoDB gắn sẵn PK), (status, session_id), còn lọc thời gian thì
+ * đi ngược PK (session_id tăng theo start_time vì phiên được tạo lúc bắt đầu) hoặc index start_time khi khoảng hẹp.
+ */
+public class ChargeSessionQueryRepositoryImpl implements ChargeSessionQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ChargeSessionDto> findPage(ChargeSessionFilter filter, Long beforeId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new project.code.dto.session.ChargeSessionDto(" +
+                "s.sessionId, s.driver.id, v.id, s.chargingPoint.chargingPointId, s.station.stationId, " +
+                "s.startTime, s.endTime, s.energyUsed, s.cost, s.status) " +
+                "FROM ChargeSession s LEFT JOIN s.vehicle v WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (beforeId != null) {
+            jpql.append(" AND s.sessionId < :beforeId");
+            params.put("beforeId", beforeId);
+        }
+        if (filter.stationId() != null) {
+            jpql.append(" AND s.station.stationId = :stationId");
+            params.put("stationId", filter.stationId());
+        }
+        if (filter.driverId() != null) {
+            jpql.append(" AND s.driver.id = :driverId");
+            params.put("driverId", filter.driverId());
+        }
+        if (filter.status() != null) {
+            jpql.append(" AND s.status = :status");
+            params.put("status", filter.status());
+        }
+        if (filter.from() != null) {
+            jpql.append(" AND s.startTime >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" AND s.startTime < :to");
+            params.put("to", filter.to());
+        }
+        jpql.append(" ORDER BY s.sessionId DESC");
+
+        TypedQuery<ChargeSessionDto> query = entityManager.createQuery(jpql.toString(), ChargeSessionDto.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
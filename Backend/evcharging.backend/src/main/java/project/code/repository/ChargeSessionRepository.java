@@ -1,17 +1,22 @@
 package project.code.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import project.code.model.ChargeSession;
+import project.code.dto.report.SessionTotalsDto;
+import project.code.dto.report.SessionWindowDto;
 
 // (1) Import các kiểu dữ liệu mà phương thức mới cần
 import project.code.model.ChargingStation;
 import project.code.model.enums.SessionStatus;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ChargeSessionRepository extends JpaRepository<ChargeSession, Long> {
+public interface ChargeSessionRepository extends JpaRepository<ChargeSession, Long>, ChargeSessionQueryRepository {
 
     List<ChargeSession> findAllByStationAndStatusAndEndTimeBetween(
             ChargingStation station,
@@ -20,4 +25,47 @@ public interface ChargeSessionRepository extends JpaRepository<ChargeSession, Lo
             LocalDateTime end
     );
 
+    // Các id trong danh sách còn tồn tại (phiên có thể đã bị xóa sau khi vào outbox hóa đơn)
+    @Query("SELECT s.sessionId FROM ChargeSession s WHERE s.sessionId IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Tổng hợp COUNT/SUM ngay trong DB, không nạp entity lên heap
+    @Query("SELECT new project.code.dto.report.SessionTotalsDto(" +
+            "COUNT(s), COALESCE(SUM(s.energyUsed), 0.0), COALESCE(SUM(s.cost), 0.0)) " +
+            "FROM ChargeSession s " +
+            "WHERE s.station = :station AND s.status = :status " +
+            "AND s.endTime BETWEEN :start AND :end")
+    SessionTotalsDto aggregateByStationAndStatusAndEndTimeBetween(
+            ChargingStation station,
+            SessionStatus status,
+            LocalDateTime start,
+            LocalDateTime end
+    );
+
+    // Giống trên nhưng khoảng nửa mở [start, end), dùng cho phần lẻ giờ khi ghép với bucket
+    @Query("SELECT new project.code.dto.report.SessionTotalsDto(" +
+            "COUNT(s), COALESCE(SUM(s.energyUsed), 0.0), COALESCE(SUM(s.cost), 0.0)) " +
+            "FROM ChargeSession s " +
+            "WHERE s.station = :station AND s.status = :status " +
+            "AND s.endTime >= :start AND s.endTime < :end")
+    SessionTotalsDto aggregateByStationAndStatusAndEndTimeInRange(
+            ChargingStation station,
+            SessionStatus status,
+            LocalDateTime start,
+            LocalDateTime end
+    );
+
+    // Duyệt theo keyset (sessionId tăng dần) để backfill mà không nạp entity
+    @Query("SELECT new project.code.dto.report.SessionWindowDto(" +
+            "s.sessionId, s.startTime, s.endTime, s.energyUsed, s.cost) " +
+            "FROM ChargeSession s " +
+            "WHERE s.station = :station AND s.status = :status AND s.sessionId > :afterId " +
+            "ORDER BY s.sessionId ASC")
+    List<SessionWindowDto> findWindowsByStationAndStatusAfter(
+            ChargingStation station,
+            SessionStatus status,
+            Long afterId,
+            Pageable pageable
+    );
+
 }
\ No newline at end of file
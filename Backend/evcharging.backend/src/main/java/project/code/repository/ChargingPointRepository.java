@@ -1,9 +1,29 @@
 package project.code.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import project.code.dto.station.PointStatusCountDto;
 import project.code.model.ChargingPoint;
+import project.code.model.enums.ChargingPointStatus;
+
+import java.util.List;
 
 @Repository
 public interface ChargingPointRepository extends JpaRepository<ChargingPoint, Long> {
+
+    List<ChargingPoint> findByStation_StationIdOrderByChargingPointId(Long stationId);
+
+    // Dùng để nạp/đối soát StationAvailabilityCounters
+    @Query("SELECT new project.code.dto.station.PointStatusCountDto(p.station.stationId, p.type, p.status, COUNT(p)) " +
+            "FROM ChargingPoint p GROUP BY p.station.stationId, p.type, p.status")
+    List<PointStatusCountDto> countGroupedByStationTypeAndStatus();
+
+    // Đổi trạng thái chỉ khi điểm sạc đang ở trạng thái mong đợi (compare-and-set ở mức dòng).
+    // Trả về 1 nếu thành công, 0 nếu đã có request khác đổi trước.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ChargingPoint p SET p.status = :newStatus " +
+            "WHERE p.chargingPointId = :id AND p.status = :expectedStatus")
+    int compareAndSetStatus(Long id, ChargingPointStatus expectedStatus, ChargingPointStatus newStatus);
 }
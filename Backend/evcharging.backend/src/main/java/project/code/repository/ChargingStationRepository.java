@@ -1,10 +1,20 @@
 package project.code.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import project.code.dto.station.StationLocationDto;
 import project.code.model.ChargingStation;
 
+import java.util.List;
+
 @Repository
 public interface ChargingStationRepository extends JpaRepository<ChargingStation, Long> {
-    
+
+    @Query("SELECT s.stationId FROM ChargingStation s ORDER BY s.stationId")
+    List<Long> findAllStationIds();
+
+    @Query("SELECT new project.code.dto.station.StationLocationDto(s.stationId, s.latitude, s.longitude, s.status) " +
+            "FROM ChargingStation s WHERE s.latitude IS NOT NULL AND s.longitude IS NOT NULL")
+    List<StationLocationDto> findAllLocations();
 }
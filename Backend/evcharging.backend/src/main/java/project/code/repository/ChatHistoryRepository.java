@@ -1,14 +1,60 @@
 package project.code.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import project.code.model.ChatHistory;
-import project.code.model.EVDriver;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ChatHistoryRepository extends JpaRepository<ChatHistory, Long> {
-    List<ChatHistory> findByDriverOrderByTimestampDesc(EVDriver driver);
-    List<ChatHistory> findTop20ByDriverOrderByTimestampDesc(EVDriver driver);
+
+    // Các lượt chat mới nhất (mới trước): cửa sổ recentTurns lượt không bao giờ được gộp vào bản tóm tắt
+    @Query("SELECT h FROM ChatHistory h WHERE h.driver.id = :driverId ORDER BY h.id DESC")
+    List<ChatHistory> findRecentByDriverId(Long driverId, Pageable pageable);
+
+    // Các lượt chat chưa được gộp vào bản tóm tắt (id > afterId), mới trước
+    @Query("SELECT h FROM ChatHistory h WHERE h.driver.id = :driverId AND h.id > :afterId ORDER BY h.id DESC")
+    List<ChatHistory> findRecentByDriverIdAfter(Long driverId, Long afterId, Pageable pageable);
+
+    // Các lượt chat nằm giữa phần đã tóm tắt và cửa sổ gửi nguyên văn, cũ trước
+    @Query("SELECT h FROM ChatHistory h WHERE h.driver.id = :driverId AND h.id > :afterId AND h.id < :beforeId ORDER BY h.id ASC")
+    List<ChatHistory> findBetween(Long driverId, Long afterId, Long beforeId, Pageable pageable);
+
+    @Query("SELECT COUNT(h) FROM ChatHistory h WHERE h.driver.id = :driverId AND h.id > :afterId AND h.id < :beforeId")
+    long countBetween(Long driverId, Long afterId, Long beforeId);
+
+    // Phân trang keyset theo id giảm dần; beforeId = null là trang mới nhất
+    @Query("SELECT h FROM ChatHistory h WHERE h.driver.id = :driverId AND (:beforeId IS NULL OR h.id < :beforeId) ORDER BY h.id DESC")
+    List<ChatHistory> findPageByDriverId(Long driverId, Long beforeId, Pageable pageable);
+
+    // Xóa toàn bộ lịch sử của tài xế bằng một câu DELETE
+    @Modifying
+    @Query("DELETE FROM ChatHistory h WHERE h.driver.id = :driverId")
+    int deleteByDriverId(Long driverId);
+
+    @Modifying
+    @Query("DELETE FROM ChatHistory h WHERE h.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    // Dùng cho job retention: từng lô id cũ hơn mốc thời gian và đã được gộp vào bản tóm tắt của tài xế
+    @Query("SELECT h.id FROM ChatHistory h JOIN ChatSummary s ON s.driverId = h.driver.id " +
+            "WHERE h.timestamp < :cutoff AND h.id <= s.lastHistoryId ORDER BY h.id")
+    List<Long> findSummarizedIdsOlderThan(LocalDateTime cutoff, Pageable pageable);
+
+    // Tài xế có nhiều hơn maxRows dòng lịch sử
+    @Query("SELECT h.driver.id FROM ChatHistory h GROUP BY h.driver.id HAVING COUNT(h) > :maxRows")
+    List<Long> findDriverIdsWithMoreThan(long maxRows);
+
+    // id của dòng thứ (offset + 1) tính từ mới nhất; các dòng có id nhỏ hơn là phần vượt giới hạn
+    @Query("SELECT h.id FROM ChatHistory h WHERE h.driver.id = :driverId ORDER BY h.id DESC")
+    List<Long> findIdsByDriverIdNewestFirst(Long driverId, Pageable pageable);
+
+    @Query("SELECT h.id FROM ChatHistory h WHERE h.driver.id = :driverId AND h.id < :beforeId ORDER BY h.id")
+    List<Long> findIdsByDriverIdBefore(Long driverId, Long beforeId, Pageable pageable);
 }
@@ -0,0 +1,29 @@
+package project.code.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import project.code.model.ChatSummary;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ChatSummaryRepository extends JpaRepository<ChatSummary, Long> {
+
+    @Modifying
+    @Query("DELETE FROM ChatSummary s WHERE s.driverId = :driverId")
+    int deleteByDriverId(Long driverId);
+
+    // Chỉ ghi khi lượt chat cuối được gộp vẫn còn: tài xế xóa lịch sử trong lúc đang tóm tắt thì bản tóm tắt bị bỏ
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO chat_summaries (driver_id, summary, last_history_id, updated_at) " +
+            "SELECT h.driver_id, :summary, h.id, :updatedAt FROM chat_history h " +
+            "WHERE h.id = :lastHistoryId AND h.driver_id = :driverId " +
+            "ON DUPLICATE KEY UPDATE summary = VALUES(summary), last_history_id = VALUES(last_history_id), " +
+            "updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    int saveIfHistoryExists(Long driverId, String summary, Long lastHistoryId, LocalDateTime updatedAt);
+}
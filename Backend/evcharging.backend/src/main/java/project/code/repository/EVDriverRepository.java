@@ -1,10 +1,20 @@
 package project.code.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import project.code.model.EVDriver;
 import project.code.model.User;
 import java.util.Optional;
 
 public interface EVDriverRepository extends JpaRepository<EVDriver, Long> {
     Optional<EVDriver> findByUserAccount(User userAccount);
+
+    // Cộng/trừ số dư ngay trong DB, không đọc-sửa-ghi ở Java nên không mất cập nhật khi chạy đồng thời
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE EVDriver d SET d.walletBalance = d.walletBalance + :delta WHERE d.id = :driverId")
+    int incrementWalletBalance(Long driverId, double delta);
+
+    @Query("SELECT d.walletBalance FROM EVDriver d WHERE d.id = :driverId")
+    Optional<Double> findWalletBalanceById(Long driverId);
 }
@@ -0,0 +1,32 @@
+package project.code.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import project.code.model.InvoiceOutbox;
+import project.code.model.enums.OutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InvoiceOutboxRepository extends JpaRepository<InvoiceOutbox, Long> {
+
+    // SKIP LOCKED: nhiều node cùng chạy dispatcher sẽ lấy các lô khác nhau, không chờ nhau
+    @Query(value = "SELECT * FROM invoice_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY outbox_id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<InvoiceOutbox> lockDueBatch(LocalDateTime now, int limit);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("SELECT MIN(o.createdAt) FROM InvoiceOutbox o WHERE o.status = :status")
+    Optional<LocalDateTime> findOldestCreatedAtByStatus(OutboxStatus status);
+
+    @Modifying
+    @Query("UPDATE InvoiceOutbox o SET o.status = project.code.model.enums.OutboxStatus.PENDING, " +
+            "o.attempts = 0, o.nextAttemptAt = :now, o.lastError = NULL " +
+            "WHERE o.status = project.code.model.enums.OutboxStatus.FAILED")
+    int requeueFailed(LocalDateTime now);
+}
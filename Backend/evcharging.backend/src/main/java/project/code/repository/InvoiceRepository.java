@@ -1,12 +1,14 @@
 package project.code.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import project.code.model.ChargeSession;
 import project.code.model.EVDriver;
 import project.code.model.Invoice;
 import project.code.model.enums.InvoiceStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +17,7 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Optional<Invoice> findByChargeSession(ChargeSession chargeSession);
     List<Invoice> findByDriver(EVDriver driver);
     List<Invoice> findByStatus(InvoiceStatus status);
+
+    @Query("SELECT i.chargeSession.sessionId FROM Invoice i WHERE i.chargeSession.sessionId IN :sessionIds")
+    List<Long> findSessionIdsWithInvoice(Collection<Long> sessionIds);
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package project.code.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import project.code.model.ChargingStation;
 import project.code.model.Report;
 import project.code.model.enums.ReportType; // Import Enum
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +15,9 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
 
     List<Report> findByStation(ChargingStation station);
 
+    Optional<Report> findByStationAndReportTypeAndPeriodStartAndPeriodEnd(
+            ChargingStation station, ReportType reportType, LocalDateTime periodStart, LocalDateTime periodEnd);
+
     List<Report> findByReportType(ReportType reportType);
 
     List<Report> findByPeriodStartBetween(LocalDateTime start, LocalDateTime end);
@@ -28,4 +33,12 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     List<Report> findByTotalSessionsGreaterThanEqual(int minSessions);
 
     List<Report> findByTotalRevenueBetween(double minRevenue, double maxRevenue);
+
+    @Query("SELECT r.station.stationId FROM Report r " +
+            "WHERE r.reportType = :reportType AND r.periodStart = :periodStart AND r.periodEnd = :periodEnd")
+    List<Long> findStationIdsWithReport(ReportType reportType, LocalDateTime periodStart, LocalDateTime periodEnd);
+
+    @Query("SELECT COUNT(r) FROM Report r " +
+            "WHERE r.reportType IN :reportTypes AND r.periodStart = :periodStart AND r.periodEnd = :periodEnd")
+    long countForPeriod(Collection<ReportType> reportTypes, LocalDateTime periodStart, LocalDateTime periodEnd);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package project.code.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import project.code.dto.report.SessionTotalsDto;
+import project.code.model.ChargingStation;
+import project.code.model.StationHourlyStats;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface StationHourlyStatsRepository extends JpaRepository<StationHourlyStats, Long> {
+
+    // Cộng dồn vào bucket, tạo mới nếu chưa có (atomic nhờ unique key station_id + bucket_start)
+    @Modifying
+    @Query(value = "INSERT INTO station_hourly_stats " +
+            "(station_id, bucket_start, total_sessions, total_energy, total_revenue, busy_minutes) " +
+            "VALUES (:stationId, :bucketStart, :sessions, :energy, :revenue, :busyMinutes) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "total_sessions = total_sessions + :sessions, " +
+            "total_energy = total_energy + :energy, " +
+            "total_revenue = total_revenue + :revenue, " +
+            "busy_minutes = busy_minutes + :busyMinutes",
+            nativeQuery = true)
+    void upsertBucket(Long stationId, LocalDateTime bucketStart, int sessions,
+                      double energy, double revenue, double busyMinutes);
+
+    // Tổng các bucket trong [start, end)
+    @Query("SELECT new project.code.dto.report.SessionTotalsDto(" +
+            "COALESCE(SUM(h.totalSessions), 0L), COALESCE(SUM(h.totalEnergy), 0.0), COALESCE(SUM(h.totalRevenue), 0.0)) " +
+            "FROM StationHourlyStats h " +
+            "WHERE h.station = :station AND h.bucketStart >= :start AND h.bucketStart < :end")
+    SessionTotalsDto sumByStationAndBucketStartInRange(ChargingStation station, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @Query("DELETE FROM StationHourlyStats h WHERE h.station = :station")
+    void deleteByStation(ChargingStation station);
+}
@@ -0,0 +1,18 @@
+package project.code.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import project.code.model.EVDriver;
+import project.code.model.WalletTransaction;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
+
+    Optional<WalletTransaction> findByIdempotencyKey(String idempotencyKey);
+
+    List<WalletTransaction> findByDriverOrderByTransactionIdDesc(EVDriver driver, Pageable pageable);
+}
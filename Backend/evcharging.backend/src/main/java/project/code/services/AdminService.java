@@ -16,6 +16,7 @@ import project.code.repository.AdminRepository;
 import project.code.model.ChargingStation;
 import project.code.repository.ChargingStationRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import project.code.config.ActiveUserCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -30,10 +31,11 @@ public class AdminService {
     private final UserRepository userRepository;
     private final ChargingStationRepository stationRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ActiveUserCache activeUserCache;
 
     @Transactional(readOnly = true)
     public List<AdminResponseDto> getAllAdminProfiles() {
-        return adminRepository.findAll()
+        return adminRepository.findAllWithUser()
                 .stream()
                 .map(this::mapToAdminResponseDto)
                 .collect(Collectors.toList());
@@ -74,6 +76,7 @@ public class AdminService {
         } else {
             if (userRepository.existsById(userId)) {
                 userRepository.deleteById(userId);
+                activeUserCache.evict(userId);
                 return true;
             }
         }
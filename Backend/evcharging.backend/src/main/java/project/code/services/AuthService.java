@@ -81,9 +81,8 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional; // (1) THÊM IMPORT
+import org.springframework.transaction.support.TransactionTemplate;
 
 import project.code.config.JwtConfig; // (Hoặc JwtService)
 import project.code.dto.LoginRequest;
@@ -95,6 +94,9 @@ import project.code.model.EVDriver;
 import project.code.repository.UserRepository;
 import project.code.repository.EVDriverRepository;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -103,20 +105,26 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final EVDriverRepository evDriverRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtConfig jwtConfig;
     private final AuthenticationManager authenticationManager;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
-    public LoginResponse register(RegisterRequest request) {
+    // Hash mật khẩu trước, rồi mới mở transaction ngắn cho hai lệnh insert: không giữ connection trong lúc chạy BCrypt
+    public CompletableFuture<LoginResponse> register(RegisterRequest request) {
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
             throw new IllegalArgumentException("Email đã được sử dụng");
         }
 
+        return passwordHashingService.encode(request.getPassword())
+                .thenApply(passwordHash -> transactionTemplate.execute(status -> createDriver(request, passwordHash)));
+    }
+
+    private LoginResponse createDriver(RegisterRequest request, String passwordHash) {
         var user = User.builder()
                 .name(request.getName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHash)
                 .role(Role.ROLE_EVDRIVER)
                 .build();
         User savedUser = userRepository.save(user);
@@ -137,39 +145,46 @@ public class AuthService {
                 .build();
     }
 
-    public LoginResponse login(LoginRequest request) {
+    public CompletableFuture<LoginResponse> login(LoginRequest request) {
         logger.info("Attempting login for email: {}", request.getEmail());
 
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getEmail(),
-                            request.getPassword()
-                    )
-            );
-            logger.info("Authentication successful for: {}", request.getEmail());
-
-        } catch (BadCredentialsException e) {
-            logger.error("!!! LỖI SAI MẬT KHẨU (BadCredentialsException) cho email: {} !!!", request.getEmail());
-            throw e;
-        } catch (UsernameNotFoundException e) {
-            logger.error("User not found during authentication: {}", request.getEmail());
-            throw e;
-        } catch (Exception e) {
-            logger.error("Authentication failed for email: {}. Error: {}", request.getEmail(), e.getMessage(), e);
-            throw e;
-        }
-
-        var user = (User) userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new UsernameNotFoundException("User somehow not found after successful authentication"));
-
-        var jwtToken = jwtConfig.generateToken(user);
-        logger.info("JWT Token generated for: {}", request.getEmail());
+        // BCrypt verify chạy trên pool riêng, thread request được nhả ra trong lúc chờ
+        return passwordHashingService.submit(() -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                request.getEmail(),
+                                request.getPassword()
+                        )
+                ))
+                .whenComplete((authentication, error) -> {
+                    if (error != null) {
+                        logLoginFailure(request.getEmail(), error);
+                    }
+                })
+                .thenApply(authentication -> {
+                    logger.info("Authentication successful for: {}", request.getEmail());
+
+                    // Principal đã được nạp khi xác thực, không cần tra lại DB
+                    var user = (User) authentication.getPrincipal();
+
+                    var jwtToken = jwtConfig.generateToken(user);
+                    logger.info("JWT Token generated for: {}", request.getEmail());
+
+                    return LoginResponse.builder()
+                            .token(jwtToken)
+                            .email(user.getEmail())
+                            .role(user.getRole().name())
+                            .build();
+                });
+    }
 
-        return LoginResponse.builder()
-                .token(jwtToken)
-                .email(user.getEmail())
-                .role(user.getRole().name())
-                .build();
+    private void logLoginFailure(String email, Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (e instanceof BadCredentialsException) {
+            logger.error("!!! LỖI SAI MẬT KHẨU (BadCredentialsException) cho email: {} !!!", email);
+        } else if (e instanceof UsernameNotFoundException) {
+            logger.error("User not found during authentication: {}", email);
+        } else {
+            logger.error("Authentication failed for email: {}. Error: {}", email, e.getMessage(), e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package project.code.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.code.dto.booking.BookingIntervalDto;
+import project.code.dto.booking.TimeSlotDto;
+import project.code.model.enums.BookingStatus;
+import project.code.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục trong bộ nhớ các booking PENDING/CONFIRMED, mỗi điểm sạc một tập khoảng thời gian sắp theo giờ bắt đầu.
+ * Kiểm tra trùng lịch và tìm khung giờ trống không cần truy vấn DB.
+ * Được nạp một lần khi khởi động và cập nhật sau khi các transaction của BookingService commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingAvailabilityIndex.class);
+
+    public static final EnumSet<BookingStatus> ACTIVE_STATUSES = EnumSet.of(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, PointSchedule> schedules = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        List<BookingIntervalDto> intervals =
+                bookingRepository.findIntervalsByStatusInAndEndTimeAfter(ACTIVE_STATUSES, LocalDateTime.now());
+        for (BookingIntervalDto i : intervals) {
+            add(i.chargingPointId(), i.bookingId(), i.startTime(), i.endTime());
+        }
+        logger.info("Booking availability index loaded {} active bookings", intervals.size());
+    }
+
+    public boolean overlaps(Long pointId, LocalDateTime start, LocalDateTime end) {
+        PointSchedule schedule = schedules.get(pointId);
+        return schedule != null && schedule.overlaps(start, end);
+    }
+
+    public void add(Long pointId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        schedules.computeIfAbsent(pointId, id -> new PointSchedule()).add(new Slot(bookingId, start, end));
+    }
+
+    public void remove(Long pointId, Long bookingId) {
+        PointSchedule schedule = schedules.get(pointId);
+        if (schedule != null) {
+            schedule.remove(bookingId);
+        }
+    }
+
+    // Chỉ áp dụng khi transaction hiện tại commit, để index không chứa booking đã rollback
+    public void addAfterCommit(Long pointId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        runAfterCommit(() -> add(pointId, bookingId, start, end));
+    }
+
+    public void removeAfterCommit(Long pointId, Long bookingId) {
+        runAfterCommit(() -> remove(pointId, bookingId));
+    }
+
+    /**
+     * Các khung trống dài ít nhất minDuration của một điểm sạc trong [from, to).
+     */
+    public List<TimeSlotDto> freeSlots(Long pointId, LocalDateTime from, LocalDateTime to, Duration minDuration) {
+        PointSchedule schedule = schedules.get(pointId);
+        List<Slot> busy = schedule == null ? List.of() : schedule.between(from, to);
+
+        List<TimeSlotDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (Slot slot : busy) {
+            if (slot.start().isAfter(cursor)) {
+                addIfLongEnough(free, cursor, slot.start(), minDuration);
+            }
+            if (slot.end().isAfter(cursor)) {
+                cursor = slot.end();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            addIfLongEnough(free, cursor, to, minDuration);
+        }
+        return free;
+    }
+
+    private void addIfLongEnough(List<TimeSlotDto> free, LocalDateTime start, LocalDateTime end, Duration minDuration) {
+        if (Duration.between(start, end).compareTo(minDuration) >= 0) {
+            free.add(new TimeSlotDto(start, end));
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Slot(Long bookingId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final class PointSchedule {
+        private static final Comparator<Slot> ORDER =
+                Comparator.comparing(Slot::start).thenComparing(Slot::bookingId);
+
+        private final NavigableSet<Slot> slots = new TreeSet<>(ORDER);
+        private final Map<Long, Slot> byId = new HashMap<>();
+
+        // Booking dài nhất từng có ở điểm này: giới hạn đoạn phải quét lùi khi tìm slot chạm vào một khoảng
+        private Duration longest = Duration.ZERO;
+
+        synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            // Duyệt các slot bắt đầu trước end từ muộn nhất về trước; slot bắt đầu trước (start - longest) thì chắc chắn đã kết thúc
+            LocalDateTime horizon = start.minus(longest);
+            for (Slot slot : slots.headSet(probe(end), false).descendingSet()) {
+                if (slot.end().isAfter(start)) {
+                    return true;
+                }
+                if (!slot.start().isAfter(horizon)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(Slot slot) {
+            Slot previous = byId.put(slot.bookingId(), slot);
+            if (previous != null) {
+                slots.remove(previous);
+            }
+            slots.add(slot);
+            Duration length = Duration.between(slot.start(), slot.end());
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        synchronized void remove(Long bookingId) {
+            Slot slot = byId.remove(bookingId);
+            if (slot != null) {
+                slots.remove(slot);
+            }
+        }
+
+        synchronized List<Slot> between(LocalDateTime from, LocalDateTime to) {
+            List<Slot> result = new ArrayList<>();
+            for (Slot slot : slots.subSet(probe(from.minus(longest)), true, probe(to), false)) {
+                if (slot.end().isAfter(from)) {
+                    result.add(slot);
+                }
+            }
+            return result;
+        }
+
+        private static Slot probe(LocalDateTime start) {
+            return new Slot(Long.MIN_VALUE, start, start);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package project.code.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.code.dto.booking.BookingDueDto;
+import project.code.model.Booking;
+import project.code.model.enums.BookingStatus;
+import project.code.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tự động xử lý booking quá hạn: PENDING chưa được xác nhận thì hủy, CONFIRMED mà tài xế không đến thì NO_SHOW.
+ * CONFIRMED mà tài xế đã đến sạc vẫn giữ khung giờ: hạn được dời tới endTime, khi đó mới COMPLETED.
+ * Hạn được lưu ở cột bookings.expires_at (có index); phần sắp đến hạn trong một vòng quay được nạp vào
+ * hashed timer wheel trong bộ nhớ, mỗi tick chỉ lấy đúng các booking vừa đến hạn và xử lý theo lô.
+ */
+@Service
+public class BookingExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExpiryService.class);
+
+    private static final int REFILL_LIMIT = 5000;
+
+    private final BookingRepository bookingRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration pendingTtl;
+    private final Duration noShowGrace;
+    private final long tickMillis;
+    private final int batchSize;
+
+    // Timer wheel: mỗi ô là một tick; chỉ giữ các hạn nằm trong một vòng quay (wheelSize * tick)
+    private final List<ArrayDeque<Long>> buckets;
+    private final Map<Long, Long> scheduledDueTicks = new ConcurrentHashMap<>();
+    private long lastTick;
+
+    public BookingExpiryService(BookingRepository bookingRepository,
+                                BookingAvailabilityIndex availabilityIndex,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${booking.expiry.pending-ttl-minutes:120}") long pendingTtlMinutes,
+                                @Value("${booking.expiry.no-show-grace-minutes:15}") long noShowGraceMinutes,
+                                @Value("${booking.expiry.tick-ms:1000}") long tickMillis,
+                                @Value("${booking.expiry.wheel-size:3600}") int wheelSize,
+                                @Value("${booking.expiry.batch-size:200}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.pendingTtl = Duration.ofMinutes(pendingTtlMinutes);
+        this.noShowGrace = Duration.ofMinutes(noShowGraceMinutes);
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    // Booking mới: chờ xác nhận tối đa pendingTtl nhưng không quá giờ bắt đầu
+    public LocalDateTime pendingDeadline(LocalDateTime startTime) {
+        LocalDateTime deadline = LocalDateTime.now().plus(pendingTtl);
+        return deadline.isBefore(startTime) ? deadline : startTime;
+    }
+
+    public LocalDateTime noShowDeadline(LocalDateTime startTime) {
+        return startTime.plus(noShowGrace);
+    }
+
+    public void scheduleAfterCommit(Long bookingId, LocalDateTime dueAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(bookingId, dueAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(bookingId, dueAt);
+            }
+        });
+    }
+
+    public void unschedule(Long bookingId) {
+        scheduledDueTicks.remove(bookingId);
+    }
+
+    // Hủy lịch sau khi transaction commit; nếu rollback, booking vẫn còn hạn trong wheel như trước
+    public void unscheduleAfterCommit(Long bookingId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unschedule(bookingId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                unschedule(bookingId);
+            }
+        });
+    }
+
+    public synchronized void schedule(Long bookingId, LocalDateTime dueAt) {
+        long dueTick = toMillis(dueAt) / tickMillis;
+        if (dueTick - lastTick >= buckets.size()) {
+            // Ngoài một vòng quay: để refill nạp lại khi tới gần
+            scheduledDueTicks.remove(bookingId);
+            return;
+        }
+        long slotTick = Math.max(dueTick, lastTick + 1);
+        scheduledDueTicks.put(bookingId, dueTick);
+        buckets.get((int) (slotTick % buckets.size())).add(bookingId);
+    }
+
+    @Scheduled(fixedRateString = "${booking.expiry.tick-ms:1000}")
+    public void tick() {
+        List<Long> due = advance(System.currentTimeMillis() / tickMillis);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> expireBatch(batch));
+            } catch (Exception e) {
+                // Booking vẫn còn hạn trong DB, lần refill sau sẽ nạp lại
+                logger.error("Booking expiry batch of {} failed: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    // Nạp lại từ chỉ mục DB: các booking đến hạn trong vòng quay tới (kể cả đã quá hạn mà chưa xử lý)
+    @Scheduled(fixedDelayString = "${booking.expiry.refill-interval-ms:300000}")
+    public void refill() {
+        LocalDateTime until = LocalDateTime.now().plus(Duration.ofMillis(tickMillis * (buckets.size() - 1)));
+        List<BookingDueDto> dueSoon = bookingRepository.findDueBefore(
+                BookingAvailabilityIndex.ACTIVE_STATUSES, until, PageRequest.of(0, REFILL_LIMIT));
+        for (BookingDueDto d : dueSoon) {
+            schedule(d.bookingId(), d.dueAt());
+        }
+        if (!dueSoon.isEmpty()) {
+            logger.debug("Booking expiry wheel refilled with {} bookings", dueSoon.size());
+        }
+    }
+
+    // Lúc khởi động: gán hạn cho booking tạo trước khi có cột expires_at rồi nạp wheel
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Integer updated = transactionTemplate.execute(status ->
+                bookingRepository.backfillExpiresAt(noShowGrace.toMinutes()));
+        if (updated != null && updated > 0) {
+            logger.info("Assigned expiry deadlines to {} existing bookings", updated);
+        }
+        refill();
+    }
+
+    synchronized List<Long> advance(long nowTick) {
+        List<Long> due = new ArrayList<>();
+        long ticks = Math.min(nowTick - lastTick, buckets.size());
+        for (long t = nowTick - ticks + 1; t <= nowTick; t++) {
+            ArrayDeque<Long> bucket = buckets.get((int) (t % buckets.size()));
+            Long bookingId;
+            while ((bookingId = bucket.poll()) != null) {
+                Long dueTick = scheduledDueTicks.get(bookingId);
+                // null: đã hủy lịch; dueTick > nowTick: id cũ còn sót sau khi được đặt lại hạn
+                if (dueTick != null && dueTick <= nowTick) {
+                    scheduledDueTicks.remove(bookingId);
+                    due.add(bookingId);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, nowTick);
+        return due;
+    }
+
+    void expireBatch(List<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> expired = bookingRepository.lockExpired(bookingIds, BookingAvailabilityIndex.ACTIVE_STATUSES, now);
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        List<Long> confirmedIds = expired.stream()
+                .filter(b -> b.getStatus() == BookingStatus.CONFIRMED)
+                .map(Booking::getId)
+                .toList();
+        Set<Long> showedUp = confirmedIds.isEmpty() ? Set.of()
+                : new HashSet<>(bookingRepository.findIdsWithSessionDuringSlot(confirmedIds));
+
+        int cancelled = 0;
+        int noShows = 0;
+        int completed = 0;
+        int extended = 0;
+        for (Booking booking : expired) {
+            if (booking.getStatus() == BookingStatus.PENDING) {
+                booking.setStatus(BookingStatus.CANCELLED);
+                cancelled++;
+            } else if (!showedUp.contains(booking.getId())) {
+                booking.setStatus(BookingStatus.NO_SHOW);
+                noShows++;
+            } else if (now.isBefore(booking.getEndTime())) {
+                // Tài xế đã đến: khung giờ vẫn thuộc booking đến hết endTime, chưa gỡ khỏi chỉ mục
+                booking.setExpiresAt(booking.getEndTime());
+                scheduleAfterCommit(booking.getId(), booking.getEndTime());
+                extended++;
+                continue;
+            } else {
+                booking.setStatus(BookingStatus.COMPLETED);
+                completed++;
+            }
+            availabilityIndex.removeAfterCommit(booking.getChargingPoint().getChargingPointId(), booking.getId());
+        }
+        logger.info("Processed {} due bookings: {} cancelled, {} no-shows, {} completed, {} kept until end time",
+                expired.size(), cancelled, noShows, completed, extended);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -4,28 +4,65 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import project.code.model.*;
 import project.code.model.enums.BookingStatus;
+import project.code.model.enums.ChargingPointStatus;
 import project.code.repository.*;
 import project.code.dto.booking.CreateBookingRequest;
 import project.code.dto.booking.BookingDto;
+import project.code.dto.booking.PointAvailabilityDto;
 
 import jakarta.persistence.EntityNotFoundException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingService {
 
+    private static final Duration MAX_AVAILABILITY_WINDOW = Duration.ofDays(7);
+    private static final int LOCK_STRIPES = 64;
+    private static final long LOCK_WAIT_SECONDS = 5;
+
     private final BookingRepository bookingRepository;
     private final ChargingPointRepository pointRepository;
     private final EVDriverRepository driverRepository;
     private final CSStaffRepository csStaffRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingExpiryService expiryService;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    // Khóa phân dải theo điểm sạc: các điểm khác nhau gần như không tranh chấp nhau
+    private final ReentrantLock[] pointLocks = createLocks(LOCK_STRIPES);
+
+    /**
+     * Kiểm tra trùng lịch và insert được thực hiện khi đang giữ khóa của điểm sạc, và khóa chỉ được nhả
+     * sau khi transaction commit (index đã có booking mới), nên hai request chồng giờ trên cùng điểm không thể cùng thành công.
+     */
     public BookingDto createBooking(User currentUser, CreateBookingRequest request) {
+        ReentrantLock lock = lockFor(request.chargingPointId());
+        try {
+            if (!lock.tryLock(LOCK_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Hệ thống đang bận, vui lòng thử lại.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Yêu cầu đặt chỗ bị gián đoạn.");
+        }
+
+        try {
+            return transactionTemplate.execute(status -> createBookingInTransaction(currentUser, request));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private BookingDto createBookingInTransaction(User currentUser, CreateBookingRequest request) {
         EVDriver driver = findDriverProfileByUser(currentUser);
         ChargingPoint point = pointRepository.findById(request.chargingPointId())
                 .orElseThrow(() -> new EntityNotFoundException("Charging Point not found"));
@@ -34,7 +71,7 @@ public class BookingService {
             throw new IllegalArgumentException("Thời gian kết thúc phải sau thời gian bắt đầu.");
         }
 
-        boolean isOccupied = bookingRepository.existsOverlappingBooking(point, request.startTime(), request.endTime());
+        boolean isOccupied = availabilityIndex.overlaps(point.getChargingPointId(), request.startTime(), request.endTime());
         if (isOccupied) {
             throw new IllegalStateException("Cổng sạc này đã được đặt trong khung giờ bạn chọn.");
         }
@@ -46,9 +83,40 @@ public class BookingService {
                 .startTime(request.startTime())
                 .endTime(request.endTime())
                 .status(BookingStatus.PENDING)
+                .expiresAt(expiryService.pendingDeadline(request.startTime()))
                 .build();
 
-        return mapToDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        availabilityIndex.addAfterCommit(point.getChargingPointId(), savedBooking.getId(),
+                savedBooking.getStartTime(), savedBooking.getEndTime());
+        expiryService.scheduleAfterCommit(savedBooking.getId(), savedBooking.getExpiresAt());
+        return mapToDto(savedBooking);
+    }
+
+    /**
+     * Khung giờ trống của từng điểm sạc trong trạm trong [from, to), đọc từ BookingAvailabilityIndex.
+     * Điểm OFFLINE/UNAVAILABLE bị bỏ qua.
+     */
+    @Transactional(readOnly = true)
+    public List<PointAvailabilityDto> getStationAvailability(Long stationId, LocalDateTime from, LocalDateTime to,
+                                                            Duration minDuration) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Thời gian kết thúc phải sau thời gian bắt đầu.");
+        }
+        if (Duration.between(from, to).compareTo(MAX_AVAILABILITY_WINDOW) > 0) {
+            throw new IllegalArgumentException("Chỉ được tra cứu tối đa " + MAX_AVAILABILITY_WINDOW.toDays() + " ngày.");
+        }
+
+        return pointRepository.findByStation_StationIdOrderByChargingPointId(stationId).stream()
+                .filter(p -> p.getStatus() != ChargingPointStatus.OFFLINE && p.getStatus() != ChargingPointStatus.UNAVAILABLE)
+                .map(p -> new PointAvailabilityDto(
+                        p.getChargingPointId(),
+                        p.getType(),
+                        p.getPower(),
+                        p.getStatus(),
+                        availabilityIndex.freeSlots(p.getChargingPointId(), from, to, minDuration)
+                ))
+                .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -73,6 +141,8 @@ public class BookingService {
         }
 
         booking.setStatus(BookingStatus.CANCELLED);
+        availabilityIndex.removeAfterCommit(booking.getChargingPoint().getChargingPointId(), booking.getId());
+        expiryService.unscheduleAfterCommit(booking.getId());
         return mapToDto(bookingRepository.save(booking));
     }
 
@@ -105,9 +175,30 @@ public class BookingService {
         }
 
         booking.setStatus(newStatus);
+        if (newStatus == BookingStatus.CONFIRMED) {
+            // Đã xác nhận: hạn mới là giờ bắt đầu + thời gian chờ, quá hạn mà không đến sạc thì NO_SHOW
+            booking.setExpiresAt(expiryService.noShowDeadline(booking.getStartTime()));
+            expiryService.scheduleAfterCommit(booking.getId(), booking.getExpiresAt());
+        } else {
+            availabilityIndex.removeAfterCommit(booking.getChargingPoint().getChargingPointId(), booking.getId());
+            expiryService.unscheduleAfterCommit(booking.getId());
+        }
         return mapToDto(bookingRepository.save(booking));
     }
 
+    private ReentrantLock lockFor(Long chargingPointId) {
+        int h = chargingPointId.hashCode();
+        return pointLocks[(h ^ (h >>> 16)) & (pointLocks.length - 1)];
+    }
+
+    private static ReentrantLock[] createLocks(int stripes) {
+        ReentrantLock[] locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
     private EVDriver findDriverProfileByUser(User user) {
         return driverRepository.findByUserAccount(user)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hồ sơ EVDriver cho người dùng: " + user.getEmail()));
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import jakarta.persistence.EntityNotFoundException;
+import project.code.config.ActiveUserCache;
 
 import project.code.model.CSStaff;
 import project.code.repository.CSStaffRepository;
@@ -34,6 +35,7 @@ public class CSStaffService {
     private final UserRepository userRepository;
     private final ChargingStationRepository stationRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ActiveUserCache activeUserCache;
 
     @Transactional
     public CsStaffResponseDto createCSStaff(CreateCSStaffRequest request) {
@@ -66,7 +68,7 @@ public class CSStaffService {
 
     @Transactional(readOnly = true)
     public List<CsStaffResponseDto> getAllCSStaffs() {
-        return csStaffRepository.findAll().stream()
+        return csStaffRepository.findAllWithUserAndStation().stream()
                 .map(this::mapToCsStaffResponseDto)
                 .collect(Collectors.toList());
     }
@@ -119,6 +121,7 @@ public class CSStaffService {
 
             if (user != null) {
                 userRepository.delete(user);
+                activeUserCache.evict(user.getId());
             }
             return true;
         }
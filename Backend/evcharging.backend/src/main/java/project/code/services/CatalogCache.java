@@ -0,0 +1,121 @@
+package project.code.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.code.dto.chargingpoint.ChargingPointDto;
+import project.code.dto.metrics.CacheStatsDto;
+import project.code.dto.station.ChargingStationDto;
+import project.code.model.enums.ChargingPointStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache cho danh mục trạm và điểm sạc (ít thay đổi, được đọc mỗi lần mở app).
+ * Mỗi loại có một cache cho cả danh sách (kèm ETag tính sẵn) và một cache theo id cho getById;
+ * hai cache của cùng loại luôn được invalidate cùng nhau.
+ * Trạng thái điểm sạc đổi liên tục theo phiên sạc nên không invalidate danh mục: thay đổi do bắt đầu/dừng phiên
+ * được ghi vào một bảng trạng thái sống và phủ lên bản trong cache nếu mới hơn thời điểm bản đó được nạp.
+ */
+@Component
+public class CatalogCache {
+
+    public static final String ALL = "ALL";
+
+    private final ReadThroughCache<String, Snapshot<ChargingStationDto>> stationList;
+    private final ReadThroughCache<Long, ChargingStationDto> stationById;
+    private final ReadThroughCache<String, Snapshot<ChargingPointDto>> pointList;
+    private final ReadThroughCache<Long, Loaded<ChargingPointDto>> pointById;
+    private final Map<Long, StatusChange> pointStatus = new ConcurrentHashMap<>();
+
+    public CatalogCache(@Value("${catalog.cache.max-entries:1000}") int maxEntries,
+                        @Value("${catalog.cache.ttl-seconds:300}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.stationList = new ReadThroughCache<>("stations.all", 1, ttl);
+        this.stationById = new ReadThroughCache<>("stations.by-id", maxEntries, ttl);
+        this.pointList = new ReadThroughCache<>("charging-points.all", 1, ttl);
+        this.pointById = new ReadThroughCache<>("charging-points.by-id", maxEntries, ttl);
+    }
+
+    // Danh sách kèm ETag tính một lần lúc nạp, không phải tính lại mỗi request
+    public record Snapshot<T>(List<T> items, String etag, long loadedAtNanos) {
+        public static <T> Snapshot<T> of(List<T> items) {
+            return of(items, System.nanoTime());
+        }
+
+        // loadedAtNanos: lấy trước khi đọc DB, để thay đổi commit trong lúc nạp vẫn được coi là mới hơn
+        public static <T> Snapshot<T> of(List<T> items, long loadedAtNanos) {
+            // toString của record chứa tên enum và giá trị field nên ổn định giữa các lần khởi động
+            return new Snapshot<>(List.copyOf(items), Integer.toHexString(items.size()) + "-"
+                    + Integer.toHexString(items.toString().hashCode()), loadedAtNanos);
+        }
+    }
+
+    public record Loaded<T>(T value, long loadedAtNanos) {
+    }
+
+    private record StatusChange(ChargingPointStatus status, long changedAtNanos) {
+    }
+
+    public ReadThroughCache<String, Snapshot<ChargingStationDto>> stationList() {
+        return stationList;
+    }
+
+    public ReadThroughCache<Long, ChargingStationDto> stationById() {
+        return stationById;
+    }
+
+    public ReadThroughCache<String, Snapshot<ChargingPointDto>> pointList() {
+        return pointList;
+    }
+
+    public ReadThroughCache<Long, Loaded<ChargingPointDto>> pointById() {
+        return pointById;
+    }
+
+    public void invalidateStationsAfterCommit() {
+        stationList.invalidateAllAfterCommit();
+        stationById.invalidateAllAfterCommit();
+    }
+
+    public void invalidatePointsAfterCommit() {
+        pointList.invalidateAllAfterCommit();
+        pointById.invalidateAllAfterCommit();
+    }
+
+    // Bắt đầu/dừng phiên sạc chỉ đổi trạng thái một điểm; không xóa danh mục đã cache
+    public void pointStatusChangedAfterCommit(Long pointId, ChargingPointStatus status) {
+        runAfterCommit(() -> pointStatus.put(pointId, new StatusChange(status, System.nanoTime())));
+    }
+
+    // Trạng thái sống chỉ được dùng khi đổi sau lúc bản cache được nạp; bản nạp sau đó đã có trạng thái từ DB
+    public ChargingPointDto withLiveStatus(ChargingPointDto point, long loadedAtNanos) {
+        StatusChange change = pointStatus.get(point.chargingPointId());
+        if (change == null || change.changedAtNanos() - loadedAtNanos < 0 || change.status() == point.status()) {
+            return point;
+        }
+        return new ChargingPointDto(point.chargingPointId(), point.stationId(), point.type(), point.power(),
+                change.status());
+    }
+
+    public List<CacheStatsDto> getStats() {
+        return List.of(stationList.getStats(), stationById.getStats(), pointList.getStats(), pointById.getStats());
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,6 +1,8 @@
 package project.code.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.code.model.*;
@@ -10,29 +12,75 @@ import project.code.repository.*;
 import project.code.dto.session.CreateChargeSessionRequest;
 import project.code.dto.session.StopChargeSessionRequest;
 import project.code.dto.session.ChargeSessionDto;
+import project.code.dto.session.ChargeSessionFilter;
+import project.code.dto.session.ChargeSessionPageDto;
+import project.code.dto.session.LiveSessionDto;
 
 import jakarta.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ChargeSessionService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final ChargeSessionFilter NO_FILTER = new ChargeSessionFilter(null, null, null, null, null);
+
     private final ChargeSessionRepository repository;
     private final EVDriverRepository evDriverRepository;
     private final VehicleRepository vehicleRepository;
     private final ChargingPointRepository chargingPointRepository;
     private final ChargingStationRepository stationRepository;
-    private final InvoiceService invoiceService;
-
+    private final InvoiceOutboxService invoiceOutboxService;
+    private final StationHourlyStatsService hourlyStatsService;
+    private final ChargeSessionTelemetryService telemetryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletService walletService;
+    private final StationAvailabilityCounters availabilityCounters;
+    private final CatalogCache catalogCache;
+    private final ObjectMapper objectMapper;
+
+    // Giữ cho client cũ; dùng projection nên chỉ một câu SQL. Danh sách lớn nên dùng getPage/exportNdjson
     @Transactional(readOnly = true)
     public List<ChargeSessionDto> getAll() {
-        return repository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return repository.findPage(NO_FILTER, null, Integer.MAX_VALUE);
+    }
+
+    // Phân trang keyset: chi phí mỗi trang không phụ thuộc vào trang thứ mấy hay kích thước bảng
+    @Transactional(readOnly = true)
+    public ChargeSessionPageDto getPage(ChargeSessionFilter filter, Long cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        List<ChargeSessionDto> rows = repository.findPage(filter, cursor, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ChargeSessionDto> items = hasMore ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasMore ? items.get(items.size() - 1).sessionId() : null;
+
+        return new ChargeSessionPageDto(items, nextCursor, hasMore);
+    }
+
+    // Xuất NDJSON (mỗi dòng một phiên), đọc từng khối theo keyset nên bộ nhớ không tăng theo số dòng
+    public void exportNdjson(ChargeSessionFilter filter, OutputStream out) throws IOException {
+        Long cursor = null;
+        List<ChargeSessionDto> chunk;
+        do {
+            chunk = repository.findPage(filter, cursor, EXPORT_CHUNK_SIZE);
+            for (ChargeSessionDto dto : chunk) {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            }
+            out.flush();
+            if (!chunk.isEmpty()) {
+                cursor = chunk.get(chunk.size() - 1).sessionId();
+            }
+        } while (chunk.size() == EXPORT_CHUNK_SIZE);
     }
 
     @Transactional(readOnly = true)
@@ -41,6 +89,17 @@ public class ChargeSessionService {
                 .map(this::mapToDto);
     }
 
+    // Số liệu trực tiếp: ưu tiên bộ đếm telemetry trong bộ nhớ, không có thì đọc từ DB
+    @Transactional(readOnly = true)
+    public Optional<LiveSessionDto> getLive(Long id) {
+        Optional<LiveSessionDto> live = telemetryService.getLive(id);
+        if (live.isPresent()) {
+            return live;
+        }
+        return repository.findById(id)
+                .map(this::mapToLiveDto);
+    }
+
     @Transactional
     public ChargeSessionDto startSession(CreateChargeSessionRequest request) {
 
@@ -50,15 +109,20 @@ public class ChargeSessionService {
         Vehicle vehicle = vehicleRepository.findById(request.vehicleId())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy Vehicle ID: " + request.vehicleId()));
 
+        // Giành điểm sạc bằng một UPDATE có điều kiện: khi nhiều tài xế cùng bấm, chỉ một request đổi được
+        // AVAILABLE -> CHARGING, các request còn lại nhận 0 dòng và bị từ chối ngay (không khóa bảng)
+        int claimed = chargingPointRepository.compareAndSetStatus(
+                request.chargingPointId(), ChargingPointStatus.AVAILABLE, ChargingPointStatus.CHARGING);
+
         ChargingPoint point = chargingPointRepository.findById(request.chargingPointId())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy ChargingPoint ID: " + request.chargingPointId()));
 
-        if (point.getStatus() != ChargingPointStatus.AVAILABLE) {
+        if (claimed == 0) {
             throw new IllegalStateException("Điểm sạc này không sẵn sàng");
         }
-
-        point.setStatus(ChargingPointStatus.CHARGING);
-        chargingPointRepository.save(point);
+        availabilityCounters.pointChangedAfterCommit(point.getStation().getStationId(),
+                point.getType(), ChargingPointStatus.AVAILABLE, point.getType(), ChargingPointStatus.CHARGING);
+        catalogCache.pointStatusChangedAfterCommit(point.getChargingPointId(), ChargingPointStatus.CHARGING);
 
         ChargeSession session = ChargeSession.builder()
                 .driver(driver)
@@ -93,27 +157,32 @@ public class ChargeSessionService {
         double cost = calculateCost(session);
         session.setCost(cost);
 
+        // Chỉ trả điểm sạc về AVAILABLE nếu nó vẫn đang CHARGING (không đè trạng thái OFFLINE/UNAVAILABLE do staff đặt)
         ChargingPoint point = session.getChargingPoint();
-        point.setStatus(ChargingPointStatus.AVAILABLE);
-        chargingPointRepository.save(point);
+        if (chargingPointRepository.compareAndSetStatus(point.getChargingPointId(),
+                ChargingPointStatus.CHARGING, ChargingPointStatus.AVAILABLE) == 1) {
+            availabilityCounters.pointChangedAfterCommit(point.getStation().getStationId(),
+                    point.getType(), ChargingPointStatus.CHARGING, point.getType(), ChargingPointStatus.AVAILABLE);
+            catalogCache.pointStatusChangedAfterCommit(point.getChargingPointId(), ChargingPointStatus.AVAILABLE);
+        }
 
+        // Trừ tiền qua sổ cái ví; key theo phiên nên dừng phiên hai lần cũng chỉ trừ một lần
         EVDriver driver = session.getDriver();
-        double newBalance = driver.getWalletBalance() - cost;
+        WalletService.WalletEntryResult payment = walletService.apply(driver, WalletTransactionType.CHARGE_PAYMENT,
+                -cost, "CHARGE_SESSION:" + sessionId, sessionId);
 
-        if (newBalance < 0) {
+        if (payment.newBalance() < 0) {
             System.out.println("Cảnh báo: Số dư của tài xế " + driver.getId() + " là số âm.");
         }
 
-        driver.setWalletBalance(newBalance);
-        evDriverRepository.save(driver);
-
         ChargeSession savedSession = repository.save(session);
+        hourlyStatsService.recordCompletedSession(savedSession);
+        telemetryService.completeAfterCommit(sessionId);
+        // Trạng thái cuối được đẩy tới các stream SSE sau khi commit
+        eventPublisher.publishEvent(mapToLiveDto(savedSession));
 
-        try {
-            invoiceService.generateInvoiceForSession(savedSession);
-        } catch (Exception e) {
-            System.err.println("Lỗi khi tự động tạo hóa đơn cho phiên sạc " + savedSession.getSessionId() + ": " + e.getMessage());
-        }
+        // Hóa đơn được tạo bất đồng bộ từ outbox, ghi cùng commit với phiên COMPLETED nên không bị mất
+        invoiceOutboxService.enqueue(savedSession.getSessionId());
 
         return mapToDto(savedSession);
     }
@@ -127,7 +196,28 @@ public class ChargeSessionService {
     }
 
     private double calculateCost(ChargeSession session) {
-        return session.getEnergyUsed() * 1000.0;
+        return calculateCost(session.getEnergyUsed());
+    }
+
+    public static double calculateCost(double energyUsed) {
+        return energyUsed * 1000.0;
+    }
+
+    private LiveSessionDto mapToLiveDto(ChargeSession session) {
+        LocalDateTime until = session.getEndTime() != null ? session.getEndTime() : LocalDateTime.now();
+        long elapsedSeconds = session.getStartTime() == null ? 0
+                : Math.max(0, Duration.between(session.getStartTime(), until).getSeconds());
+        return new LiveSessionDto(
+                session.getSessionId(),
+                session.getStatus(),
+                session.getEnergyUsed(),
+                session.getCost(),
+                null,
+                null,
+                elapsedSeconds,
+                0,
+                null
+        );
     }
 
     private ChargeSessionDto mapToDto(ChargeSession session) {
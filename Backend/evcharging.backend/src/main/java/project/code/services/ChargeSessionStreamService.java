@@ -0,0 +1,229 @@
+package project.code.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import project.code.dto.session.LiveSessionDto;
+import project.code.model.enums.SessionStatus;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Một publisher trong tiến trình cho số liệu trực tiếp của phiên sạc.
+ * Client mở SSE theo phiên; mỗi khi telemetry hoặc stopSession thay đổi số liệu thì đẩy cho mọi subscriber,
+ * nên client không cần poll GET /api/charge-sessions/{id}.
+ * Việc ghi ra socket chạy trên pool riêng có giới hạn, không chạy trên thread nhận telemetry: mỗi subscriber chỉ giữ
+ * bản cập nhật mới nhất chưa gửi (số liệu là ảnh chụp nên bản cũ bỏ được), client chậm bị đóng kết nối.
+ */
+@Service
+public class ChargeSessionStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChargeSessionStreamService.class);
+
+    private static final String EVENT_NAME = "session";
+    private static final Object HEARTBEAT = new Object();
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long slowSendNanos;
+
+    public ChargeSessionStreamService(@Value("${sessions.stream.timeout-ms:1800000}") long timeoutMillis,
+                                      @Value("${sessions.stream.threads:4}") int threads,
+                                      @Value("${sessions.stream.queue-capacity:1000}") int queueCapacity,
+                                      @Value("${sessions.stream.slow-send-ms:2000}") long slowSendMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.slowSendNanos = TimeUnit.MILLISECONDS.toNanos(slowSendMillis);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "session-sse-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * initial là trạng thái đọc trước khi đăng ký; current đọc lại trạng thái hiện tại. Phiên có thể dừng
+     * (và sự kiện COMPLETED đã phát) giữa lúc đọc initial và lúc đăng ký subscriber, nên sau khi đăng ký
+     * trạng thái được đọc lại và stream đóng ngay nếu phiên đã kết thúc.
+     */
+    public SseEmitter subscribe(Long sessionId, LiveSessionDto initial, Supplier<Optional<LiveSessionDto>> current) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+
+        if (initial.status() == SessionStatus.COMPLETED) {
+            // Phiên đã xong: gửi trạng thái cuối rồi đóng luôn
+            send(emitter, initial);
+            emitter.complete();
+            return emitter;
+        }
+
+        Subscriber subscriber = new Subscriber(sessionId, emitter);
+        subscribers.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        subscriber.offer(initial);
+
+        current.get()
+                .filter(latest -> latest.status() == SessionStatus.COMPLETED)
+                .ifPresent(subscriber::offer);
+        return emitter;
+    }
+
+    // Với cập nhật từ stopSession chỉ đẩy sau khi commit; telemetry không có transaction nên đẩy ngay.
+    // Chỉ đặt bản cập nhật vào từng subscriber rồi trả về, không ghi socket trên thread của caller.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionUpdate(LiveSessionDto update) {
+        List<Subscriber> targets = update.status() == SessionStatus.COMPLETED
+                ? subscribers.remove(update.sessionId())
+                : subscribers.get(update.sessionId());
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(update);
+        }
+    }
+
+    // Giữ kết nối qua proxy/load balancer khi trụ chưa gửi mẫu mới
+    @Scheduled(fixedDelayString = "${sessions.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    int subscriberCount(Long sessionId) {
+        List<Subscriber> list = subscribers.get(sessionId);
+        return list == null ? 0 : list.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private boolean send(SseEmitter emitter, LiveSessionDto update) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(update));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("SSE send failed for session {}: {}", update.sessionId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean sendHeartbeat(SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.computeIfPresent(subscriber.sessionId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private final class Subscriber {
+        private final Long sessionId;
+        private final SseEmitter emitter;
+        // Bản cập nhật mới nhất chưa gửi (LiveSessionDto hoặc HEARTBEAT)
+        private final AtomicReference<Object> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(Long sessionId, SseEmitter emitter) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (closed) {
+                return;
+            }
+            if (item == HEARTBEAT) {
+                // Heartbeat không được đè lên một bản cập nhật thật đang chờ
+                if (!pending.compareAndSet(null, HEARTBEAT)) {
+                    return;
+                }
+            } else {
+                pending.set(item);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (closed || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                logger.warn("SSE fan-out queue full, closing stream for session {}", sessionId);
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed && (item = pending.getAndSet(null)) != null) {
+                    long startedAt = System.nanoTime();
+                    boolean sent = item == HEARTBEAT ? sendHeartbeat(emitter) : send(emitter, (LiveSessionDto) item);
+                    if (!sent || (item instanceof LiveSessionDto update && update.status() == SessionStatus.COMPLETED)) {
+                        close();
+                        return;
+                    }
+                    if (System.nanoTime() - startedAt > slowSendNanos) {
+                        logger.warn("SSE client for session {} is too slow, closing stream", sessionId);
+                        close();
+                        return;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Bản cập nhật đến sau lần getAndSet cuối nhưng trước khi nhả cờ draining
+            if (pending.get() != null) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                logger.debug("SSE complete failed for session {}: {}", sessionId, e.getMessage());
+            }
+        }
+    }
+}
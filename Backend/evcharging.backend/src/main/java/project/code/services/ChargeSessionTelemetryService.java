@@ -0,0 +1,212 @@
+package project.code.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.code.dto.session.LiveSessionDto;
+import project.code.dto.session.TelemetrySampleRequest;
+import project.code.model.ChargeSession;
+import project.code.model.enums.SessionStatus;
+import project.code.repository.ChargeSessionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Nhận chỉ số công tơ định kỳ từ trụ sạc cho các phiên ACTIVE.
+ * Mẫu được gộp vào bộ đếm trong bộ nhớ (CAS, không khóa) và ghi xuống charge_sessions theo lô định kỳ,
+ * thay vì mỗi mẫu một lần ghi DB.
+ */
+@Service
+public class ChargeSessionTelemetryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChargeSessionTelemetryService.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE charge_sessions SET energy_used = ?, cost = ? WHERE session_id = ? AND status = 'ACTIVE'";
+
+    private final ChargeSessionRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long idleEvictMillis;
+
+    private final Map<Long, SessionAccumulator> accumulators = new ConcurrentHashMap<>();
+    // Phiên đã dừng trên node này (id -> thời điểm dừng): mẫu đến sau đó bị bỏ, không tạo lại bộ đếm
+    private final Map<Long, Long> completedSessions = new ConcurrentHashMap<>();
+
+    public ChargeSessionTelemetryService(ChargeSessionRepository repository,
+                                         JdbcTemplate jdbcTemplate,
+                                         ApplicationEventPublisher eventPublisher,
+                                         @Value("${telemetry.idle-evict-minutes:30}") long idleEvictMinutes) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.idleEvictMillis = TimeUnit.MINUTES.toMillis(idleEvictMinutes);
+    }
+
+    public LiveSessionDto recordSample(Long sessionId, TelemetrySampleRequest sample) {
+        SessionAccumulator accumulator = accumulators.get(sessionId);
+        if (accumulator == null) {
+            if (completedSessions.containsKey(sessionId)) {
+                throw new IllegalStateException("Phiên sạc không ở trạng thái ACTIVE.");
+            }
+            // Chỉ kiểm tra DB ở mẫu đầu tiên của phiên trên node này
+            ChargeSession session = repository.findById(sessionId)
+                    .orElseThrow(() -> new EntityNotFoundException("Session không tồn tại: " + sessionId));
+            if (session.getStatus() != SessionStatus.ACTIVE) {
+                throw new IllegalStateException("Phiên sạc không ở trạng thái ACTIVE.");
+            }
+            SessionAccumulator created = accumulators.computeIfAbsent(sessionId,
+                    id -> new SessionAccumulator(id, session.getStartTime(), session.getEnergyUsed()));
+            // stopSession có thể commit giữa lúc đọc DB và lúc tạo bộ đếm: complete đánh dấu trước rồi mới xóa,
+            // nên kiểm tra lại ở đây là đủ để không bỏ sót bộ đếm mồ côi
+            if (completedSessions.containsKey(sessionId)) {
+                accumulators.remove(sessionId, created);
+                throw new IllegalStateException("Phiên sạc không ở trạng thái ACTIVE.");
+            }
+            accumulator = created;
+        }
+
+        TelemetrySnapshot snapshot = accumulator.apply(sample);
+        LiveSessionDto live = toLiveDto(accumulator, snapshot);
+        eventPublisher.publishEvent(live);
+        return live;
+    }
+
+    public Optional<LiveSessionDto> getLive(Long sessionId) {
+        SessionAccumulator accumulator = accumulators.get(sessionId);
+        if (accumulator == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toLiveDto(accumulator, accumulator.state.get()));
+    }
+
+    // Gọi trong transaction của stopSession: bỏ bộ đếm sau khi commit, dữ liệu cuối cùng do stopSession ghi
+    public void completeAfterCommit(Long sessionId) {
+        runAfterCommit(() -> {
+            completedSessions.put(sessionId, System.currentTimeMillis());
+            accumulators.remove(sessionId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.flush-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        completedSessions.values().removeIf(completedAt -> now - completedAt > idleEvictMillis);
+
+        List<Object[]> rows = new ArrayList<>();
+        List<SessionAccumulator> flushed = new ArrayList<>();
+
+        for (SessionAccumulator accumulator : accumulators.values()) {
+            TelemetrySnapshot snapshot = accumulator.state.get();
+            if (snapshot.sampleCount() != accumulator.flushedSampleCount) {
+                rows.add(new Object[]{
+                        snapshot.energyKwh(),
+                        ChargeSessionService.calculateCost(snapshot.energyKwh()),
+                        accumulator.sessionId
+                });
+                accumulator.pendingSampleCount = snapshot.sampleCount();
+                flushed.add(accumulator);
+            } else if (now - snapshot.lastSampleAtMillis() > idleEvictMillis) {
+                // Trụ không gửi mẫu nữa (mất kết nối / phiên đã dừng ở node khác)
+                accumulators.remove(accumulator.sessionId, accumulator);
+            }
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+            for (int i = 0; i < flushed.size(); i++) {
+                SessionAccumulator accumulator = flushed.get(i);
+                accumulator.flushedSampleCount = accumulator.pendingSampleCount;
+                // 0 dòng: phiên không còn ACTIVE (đã dừng, có thể ở node khác), bỏ bộ đếm thay vì flush mãi
+                if (i < updated.length && updated[i] == 0) {
+                    completedSessions.put(accumulator.sessionId, now);
+                    accumulators.remove(accumulator.sessionId, accumulator);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Telemetry flush failed for {} sessions: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private LiveSessionDto toLiveDto(SessionAccumulator accumulator, TelemetrySnapshot snapshot) {
+        long elapsedSeconds = accumulator.startTime == null ? 0
+                : Math.max(0, Duration.between(accumulator.startTime, LocalDateTime.now()).getSeconds());
+        return new LiveSessionDto(
+                accumulator.sessionId,
+                SessionStatus.ACTIVE,
+                snapshot.energyKwh(),
+                ChargeSessionService.calculateCost(snapshot.energyKwh()),
+                snapshot.powerKw(),
+                snapshot.stateOfCharge(),
+                elapsedSeconds,
+                snapshot.sampleCount(),
+                snapshot.lastSampleAt()
+        );
+    }
+
+    private record TelemetrySnapshot(double energyKwh, Double powerKw, Double stateOfCharge,
+                                     long sampleCount, LocalDateTime lastSampleAt, long lastSampleAtMillis) {
+    }
+
+    private static final class SessionAccumulator {
+        private final Long sessionId;
+        private final LocalDateTime startTime;
+        private final AtomicReference<TelemetrySnapshot> state;
+
+        // Chỉ thread flush đọc/ghi hai trường này
+        private long flushedSampleCount;
+        private long pendingSampleCount;
+
+        SessionAccumulator(Long sessionId, LocalDateTime startTime, double initialEnergy) {
+            this.sessionId = sessionId;
+            this.startTime = startTime;
+            this.state = new AtomicReference<>(new TelemetrySnapshot(initialEnergy, null, null,
+                    0, null, System.currentTimeMillis()));
+        }
+
+        // Công tơ là giá trị tích lũy nên giữ giá trị lớn nhất, mẫu đến trễ không kéo lùi số kWh
+        TelemetrySnapshot apply(TelemetrySampleRequest sample) {
+            LocalDateTime receivedAt = LocalDateTime.now();
+            long receivedAtMillis = System.currentTimeMillis();
+            return state.updateAndGet(current -> new TelemetrySnapshot(
+                    Math.max(current.energyKwh(), sample.energyKwh()),
+                    sample.powerKw() != null ? sample.powerKw() : current.powerKw(),
+                    sample.stateOfCharge() != null ? sample.stateOfCharge() : current.stateOfCharge(),
+                    current.sampleCount() + 1,
+                    receivedAt,
+                    receivedAtMillis
+            ));
+        }
+    }
+}
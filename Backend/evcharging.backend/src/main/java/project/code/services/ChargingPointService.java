@@ -5,6 +5,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.code.model.ChargingPoint;
 import project.code.model.ChargingStation;
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
 import project.code.repository.ChargingPointRepository;
 import project.code.repository.ChargingStationRepository;
 
@@ -13,6 +15,7 @@ import project.code.dto.chargingpoint.CreateChargingPointRequest;
 import project.code.dto.chargingpoint.UpdateChargingPointRequest;
 
 import jakarta.persistence.EntityNotFoundException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,18 +26,44 @@ public class ChargingPointService {
 
     private final ChargingPointRepository chargingPointRepository;
     private final ChargingStationRepository chargingStationRepository;
+    private final StationAvailabilityCounters availabilityCounters;
+    private final CatalogCache catalogCache;
 
-    @Transactional(readOnly = true)
     public List<ChargingPointDto> getAll() {
-        return chargingPointRepository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return getCatalog().items();
+    }
+
+    /**
+     * Danh mục điểm sạc đọc qua CatalogCache; chỉ bị invalidate khi admin sửa điểm sạc.
+     * Trạng thái do bắt đầu/dừng phiên sạc được phủ lên khi đọc, nên ETag gồm ETag của danh mục và mã băm các trạng thái.
+     */
+    public CatalogCache.Snapshot<ChargingPointDto> getCatalog() {
+        CatalogCache.Snapshot<ChargingPointDto> catalog = catalogCache.pointList().get(CatalogCache.ALL, key -> {
+            long loadedAt = System.nanoTime();
+            return CatalogCache.Snapshot.of(chargingPointRepository.findAll().stream()
+                    .map(this::mapToDto)
+                    .collect(Collectors.toList()), loadedAt);
+        });
+
+        List<ChargingPointDto> items = new ArrayList<>(catalog.items().size());
+        int statusHash = 1;
+        for (ChargingPointDto point : catalog.items()) {
+            ChargingPointDto live = catalogCache.withLiveStatus(point, catalog.loadedAtNanos());
+            statusHash = 31 * statusHash + (live.status() == null ? 0 : live.status().ordinal() + 1);
+            items.add(live);
+        }
+        return new CatalogCache.Snapshot<>(items, catalog.etag() + "-" + Integer.toHexString(statusHash),
+                catalog.loadedAtNanos());
     }
 
-    @Transactional(readOnly = true)
     public Optional<ChargingPointDto> getById(Long id) {
-        return chargingPointRepository.findById(id)
-                .map(this::mapToDto);
+        return Optional.ofNullable(catalogCache.pointById().get(id, key -> {
+                    long loadedAt = System.nanoTime();
+                    return chargingPointRepository.findById(key)
+                            .map(cp -> new CatalogCache.Loaded<>(mapToDto(cp), loadedAt))
+                            .orElse(null);
+                }))
+                .map(loaded -> catalogCache.withLiveStatus(loaded.value(), loaded.loadedAtNanos()));
     }
 
     @Transactional
@@ -50,6 +79,8 @@ public class ChargingPointService {
                 .build();
 
         ChargingPoint savedCp = chargingPointRepository.save(cp);
+        availabilityCounters.pointAddedAfterCommit(station.getStationId(), savedCp.getType(), savedCp.getStatus());
+        catalogCache.invalidatePointsAfterCommit();
         return mapToDto(savedCp);
     }
 
@@ -58,21 +89,27 @@ public class ChargingPointService {
         ChargingPoint cp = chargingPointRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy ChargingPoint ID: " + id));
 
+        ConnectorType oldType = cp.getType();
+        ChargingPointStatus oldStatus = cp.getStatus();
+
         if (request.type() != null) cp.setType(request.type());
         if (request.power() != null) cp.setPower(request.power());
         if (request.status() != null) cp.setStatus(request.status());
 
         ChargingPoint updatedCp = chargingPointRepository.save(cp);
+        availabilityCounters.pointChangedAfterCommit(updatedCp.getStation().getStationId(),
+                oldType, oldStatus, updatedCp.getType(), updatedCp.getStatus());
+        catalogCache.invalidatePointsAfterCommit();
         return mapToDto(updatedCp);
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!chargingPointRepository.existsById(id)) {
-            throw new EntityNotFoundException("Không tìm thấy ChargingPoint ID: " + id);
-        }
-        // (Bạn cũng nên giảm số lượng 'totalChargingPoint' trong ChargingStation tại đây)
-        chargingPointRepository.deleteById(id);
+        ChargingPoint cp = chargingPointRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy ChargingPoint ID: " + id));
+        chargingPointRepository.delete(cp);
+        availabilityCounters.pointRemovedAfterCommit(cp.getStation().getStationId(), cp.getType(), cp.getStatus());
+        catalogCache.invalidatePointsAfterCommit();
     }
 
     private ChargingPointDto mapToDto(ChargingPoint cp) {
@@ -5,32 +5,65 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.code.model.ChargingStation;
 import project.code.model.ChargingStation.StationStatus;
+import project.code.model.enums.ConnectorType;
 import project.code.repository.ChargingStationRepository;
 import project.code.dto.station.ChargingStationDto;
 import project.code.dto.station.CreateStationRequest;
+import project.code.dto.station.NearbyStationDto;
 import project.code.dto.station.UpdateStationRequest;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ChargingStationService {
 
+    private static final double MAX_NEARBY_RADIUS_KM = 200.0;
+    private static final int MAX_NEARBY_LIMIT = 50;
+    private static final EnumSet<StationStatus> UNSERVICEABLE = EnumSet.of(StationStatus.OFFLINE, StationStatus.FAULTED);
+
     private final ChargingStationRepository repository;
+    private final StationAvailabilityCounters availabilityCounters;
+    private final StationGeoIndex geoIndex;
+    private final CatalogCache catalogCache;
 
-    @Transactional(readOnly = true)
     public List<ChargingStationDto> getAll() {
-        return repository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return getCatalog().items();
+    }
+
+    /**
+     * Danh mục trạm đọc qua CatalogCache (không mở transaction khi trúng cache).
+     * Số cổng tổng/trống luôn lấy mới từ bộ đếm, nên ETag gồm ETag của danh mục và mã băm các số đếm.
+     */
+    public CatalogCache.Snapshot<ChargingStationDto> getCatalog() {
+        CatalogCache.Snapshot<ChargingStationDto> catalog = catalogCache.stationList().get(CatalogCache.ALL, key ->
+                CatalogCache.Snapshot.of(repository.findAll().stream()
+                        .map(this::mapToDto)
+                        .collect(Collectors.toList())));
+
+        List<ChargingStationDto> items = new ArrayList<>(catalog.items().size());
+        int countsHash = 1;
+        for (ChargingStationDto station : catalog.items()) {
+            ChargingStationDto live = withLiveCounts(station);
+            countsHash = 31 * (31 * countsHash + live.totalChargingPoint()) + live.availableChargers();
+            items.add(live);
+        }
+        return new CatalogCache.Snapshot<>(items, catalog.etag() + "-" + Integer.toHexString(countsHash),
+                catalog.loadedAtNanos());
     }
 
-    @Transactional(readOnly = true)
     public Optional<ChargingStationDto> getById(Long id) {
-        return repository.findById(id)
-                .map(this::mapToDto);
+        return Optional.ofNullable(catalogCache.stationById().get(id, key ->
+                        repository.findById(key).map(this::mapToDto).orElse(null)))
+                .map(this::withLiveCounts);
     }
 
     @Transactional
@@ -38,12 +71,13 @@ public class ChargingStationService {
         ChargingStation station = ChargingStation.builder()
                 .name(request.name())
                 .location(request.location())
+                .latitude(request.latitude())
+                .longitude(request.longitude())
                 .status(request.status())
-                .totalChargingPoint(request.totalChargingPoint())
-                .availableChargers(request.availableChargers())
                 .build();
 
         ChargingStation savedStation = repository.save(station);
+        onStationChanged(savedStation);
         return mapToDto(savedStation);
     }
 
@@ -54,11 +88,22 @@ public class ChargingStationService {
 
         station.setName(request.name());
         station.setLocation(request.location());
+        // Không gửi tọa độ thì giữ vị trí cũ (các màn hình chỉ đổi trạng thái không có lat/lng);
+        // muốn xóa vị trí phải gửi rõ clearLocation = true
+        if (Boolean.TRUE.equals(request.clearLocation())) {
+            if (request.latitude() != null || request.longitude() != null) {
+                throw new IllegalArgumentException("Không thể vừa xóa vừa cập nhật tọa độ");
+            }
+            station.setLatitude(null);
+            station.setLongitude(null);
+        } else if (request.latitude() != null && request.longitude() != null) {
+            station.setLatitude(request.latitude());
+            station.setLongitude(request.longitude());
+        }
         station.setStatus(request.status());
-        station.setTotalChargingPoint(request.totalChargingPoint());
-        station.setAvailableChargers(request.availableChargers());
 
         ChargingStation updatedStation = repository.save(station);
+        onStationChanged(updatedStation);
         return mapToDto(updatedStation);
     }
 
@@ -68,6 +113,11 @@ public class ChargingStationService {
             throw new RuntimeException("Không tìm thấy ChargingStation ID để xóa: " + id);
         }
         repository.deleteById(id);
+        geoIndex.removeAfterCommit(id);
+        availabilityCounters.stationRemovedAfterCommit(id);
+        catalogCache.invalidateStationsAfterCommit();
+        // Xóa trạm kéo theo xóa các điểm sạc của trạm (cascade)
+        catalogCache.invalidatePointsAfterCommit();
     }
 
     @Transactional
@@ -77,17 +127,110 @@ public class ChargingStationService {
 
         station.setStatus(status);
         ChargingStation updatedStation = repository.save(station);
+        onStationChanged(updatedStation);
         return mapToDto(updatedStation);
     }
 
+    // Trạm còn điểm sạc trống (lọc theo loại đầu sạc nếu có); danh sách id lấy từ bộ đếm trong bộ nhớ
+    @Transactional(readOnly = true)
+    public List<ChargingStationDto> getWithAvailable(ConnectorType connectorType) {
+        List<Long> stationIds = availabilityCounters.stationsWithAvailable(connectorType);
+        if (stationIds.isEmpty()) {
+            return List.of();
+        }
+        return repository.findAllById(stationIds).stream()
+                .filter(station -> !UNSERVICEABLE.contains(station.getStatus()))
+                .sorted(Comparator.comparing(ChargingStation::getStationId))
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tối đa limit trạm gần (latitude, longitude) nhất trong bán kính radiusKm còn ít nhất một điểm sạc AVAILABLE
+     * (đúng loại đầu sạc nếu có connectorType). Ứng viên lấy từ StationGeoIndex theo thứ tự khoảng cách,
+     * số điểm trống đọc từ StationAvailabilityCounters nên không truy vấn charging_points.
+     */
+    @Transactional(readOnly = true)
+    public List<NearbyStationDto> findNearby(double latitude, double longitude, double radiusKm,
+                                             ConnectorType connectorType, int limit) {
+        if (latitude < -90.0 || latitude > 90.0 || longitude < -180.0 || longitude > 180.0) {
+            throw new IllegalArgumentException("Tọa độ không hợp lệ");
+        }
+        double radius = Math.min(Math.max(radiusKm, 0.0), MAX_NEARBY_RADIUS_KM);
+        int maxResults = Math.min(Math.max(limit, 1), MAX_NEARBY_LIMIT);
+
+        List<StationGeoIndex.Hit> selected = new ArrayList<>();
+        Map<Long, Integer> availableByStation = new HashMap<>();
+        for (StationGeoIndex.Hit hit : geoIndex.withinRadius(latitude, longitude, radius)) {
+            if (UNSERVICEABLE.contains(hit.status())) {
+                continue;
+            }
+            int available = availabilityCounters.available(hit.stationId(), connectorType);
+            if (available > 0) {
+                selected.add(hit);
+                availableByStation.put(hit.stationId(), available);
+                if (selected.size() == maxResults) {
+                    break;
+                }
+            }
+        }
+        if (selected.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ChargingStation> stations = repository.findAllById(
+                        selected.stream().map(StationGeoIndex.Hit::stationId).toList())
+                .stream()
+                .collect(Collectors.toMap(ChargingStation::getStationId, Function.identity()));
+
+        List<NearbyStationDto> result = new ArrayList<>(selected.size());
+        for (StationGeoIndex.Hit hit : selected) {
+            ChargingStation station = stations.get(hit.stationId());
+            if (station == null) {
+                continue;
+            }
+            result.add(new NearbyStationDto(
+                    station.getStationId(),
+                    station.getName(),
+                    station.getLocation(),
+                    station.getStatus(),
+                    hit.latitude(),
+                    hit.longitude(),
+                    Math.round(hit.distanceKm() * 100.0) / 100.0,
+                    availableByStation.get(hit.stationId())
+            ));
+        }
+        return result;
+    }
+
+    private void onStationChanged(ChargingStation station) {
+        geoIndex.putAfterCommit(station.getStationId(), station.getLatitude(), station.getLongitude(), station.getStatus());
+        catalogCache.invalidateStationsAfterCommit();
+    }
+
+    private ChargingStationDto withLiveCounts(ChargingStationDto station) {
+        return new ChargingStationDto(
+                station.stationId(),
+                station.name(),
+                station.location(),
+                station.latitude(),
+                station.longitude(),
+                station.status(),
+                availabilityCounters.total(station.stationId()),
+                availabilityCounters.available(station.stationId())
+        );
+    }
+
     private ChargingStationDto mapToDto(ChargingStation station) {
         return new ChargingStationDto(
                 station.getStationId(),
                 station.getName(),
                 station.getLocation(),
+                station.getLatitude(),
+                station.getLongitude(),
                 station.getStatus(),
-                station.getTotalChargingPoint(),
-                station.getAvailableChargers()
+                availabilityCounters.total(station.getStationId()),
+                availabilityCounters.available(station.getStationId())
         );
     }
 }
\ No newline at end of file
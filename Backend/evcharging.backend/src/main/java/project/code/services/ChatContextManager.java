@@ -0,0 +1,215 @@
+package project.code.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import project.code.model.ChatHistory;
+import project.code.model.ChatSummary;
+import project.code.repository.ChatHistoryRepository;
+import project.code.repository.ChatSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Quản lý ngữ cảnh gửi cho LLM theo ngân sách token: một bản tóm tắt cuốn chiếu cho mỗi tài xế
+ * cộng các lượt chat chưa được tóm tắt gửi nguyên văn (mới nhất trước, trong ngân sách token). Khi đã có đủ
+ * foldBatchSize lượt chat trượt khỏi cửa sổ recentTurns lượt gần nhất, chúng được gộp một lần vào bản tóm tắt
+ * (bất đồng bộ, qua nhóm permit nền của GeminiClient; phần DB chạy trên pool riêng); trong lúc chờ đủ lô, các lượt đó vẫn được gửi nguyên văn
+ * nên không lượt nào bị rơi khỏi ngữ cảnh. Kích thước request không tăng theo độ dài hội thoại
+ * và chi phí tóm tắt chỉ là một lời gọi mỗi foldBatchSize lượt.
+ * Số token được ước lượng theo số ký tự (chars-per-token), đủ để giữ request trong giới hạn.
+ */
+@Component
+public class ChatContextManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatContextManager.class);
+
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final ChatSummaryRepository summaryRepository;
+    private final GeminiClient geminiClient;
+    private final int tokenBudget;
+    private final int recentTurns;
+    private final int summaryMaxTokens;
+    private final int foldBatchSize;
+    private final double charsPerToken;
+
+    // Mỗi tài xế chỉ có một lần cập nhật tóm tắt chạy tại một thời điểm
+    private final Set<Long> summarizing = ConcurrentHashMap.newKeySet();
+    // Phần đọc/ghi DB của việc tóm tắt: pool riêng có giới hạn, không chạy trên thread I/O của GeminiClient
+    private final ThreadPoolExecutor summaryExecutor;
+
+    public ChatContextManager(ChatHistoryRepository chatHistoryRepository,
+                              ChatSummaryRepository summaryRepository,
+                              GeminiClient geminiClient,
+                              @Value("${chatbot.context.token-budget:2000}") int tokenBudget,
+                              @Value("${chatbot.context.recent-turns:4}") int recentTurns,
+                              @Value("${chatbot.context.summary-max-tokens:400}") int summaryMaxTokens,
+                              @Value("${chatbot.context.fold-batch-size:20}") int foldBatchSize,
+                              @Value("${chatbot.context.chars-per-token:3.0}") double charsPerToken,
+                              @Value("${chatbot.context.summary-threads:1}") int summaryThreads,
+                              @Value("${chatbot.context.summary-queue-capacity:200}") int summaryQueueCapacity) {
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.geminiClient = geminiClient;
+        this.tokenBudget = tokenBudget;
+        this.recentTurns = recentTurns;
+        this.summaryMaxTokens = summaryMaxTokens;
+        this.foldBatchSize = foldBatchSize;
+        this.charsPerToken = charsPerToken;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.summaryExecutor = new ThreadPoolExecutor(summaryThreads, summaryThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(summaryQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "chat-summary-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        summaryExecutor.shutdown();
+    }
+
+    // summary có thể null; messages theo thứ tự thời gian, kết thúc bằng tin nhắn hiện tại
+    public record Conversation(String summary, List<Map<String, String>> messages) {
+    }
+
+    /**
+     * Tóm tắt hiện có cộng các lượt chat sau phần đã tóm tắt (id > lastHistoryId) vừa ngân sách token,
+     * mới nhất được ưu tiên. Tối đa recentTurns + foldBatchSize lượt: số lượt chưa gộp khi lô kế tiếp chưa đủ.
+     */
+    public Conversation build(Long driverId, String currentMessage) {
+        ChatSummary current = summaryRepository.findById(driverId).orElse(null);
+        String summary = current == null ? null : current.getSummary();
+        Long afterId = current == null ? 0L : current.getLastHistoryId();
+
+        int remaining = tokenBudget - estimateTokens(currentMessage) - estimateTokens(summary);
+        Deque<Map<String, String>> turns = new ArrayDeque<>();
+        for (ChatHistory chat : chatHistoryRepository.findRecentByDriverIdAfter(driverId, afterId,
+                PageRequest.of(0, recentTurns + foldBatchSize))) {
+            int cost = estimateTokens(chat.getUserMessage()) + estimateTokens(chat.getBotResponse());
+            if (cost > remaining) {
+                break;
+            }
+            remaining -= cost;
+            // Duyệt từ mới đến cũ nên chèn vào đầu để giữ đúng thứ tự thời gian
+            turns.addFirst(Map.of("role", "assistant", "content", chat.getBotResponse()));
+            turns.addFirst(Map.of("role", "user", "content", chat.getUserMessage()));
+        }
+
+        List<Map<String, String>> messages = new ArrayList<>(turns);
+        messages.add(Map.of("role", "user", "content", currentMessage));
+        return new Conversation(summary, messages);
+    }
+
+    /**
+     * Gọi sau khi lưu một lượt chat: gộp các lượt đã rời cửa sổ nguyên văn vào bản tóm tắt khi đủ một lô.
+     * Chạy nền trên pool tóm tắt riêng; lỗi chỉ được ghi log, lần sau sẽ gộp tiếp.
+     */
+    public void onTurnSaved(Long driverId) {
+        if (!summarizing.add(driverId)) {
+            return;
+        }
+        try {
+            summaryExecutor.execute(() -> refreshSummary(driverId));
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: bỏ qua lần này, lượt chat sau sẽ thử gộp lại
+            summarizing.remove(driverId);
+            logger.debug("Chat summary for driver {} skipped, summary queue is full", driverId);
+        }
+    }
+
+    @Transactional
+    public void forget(Long driverId) {
+        summaryRepository.deleteByDriverId(driverId);
+    }
+
+    private void refreshSummary(Long driverId) {
+        try {
+            List<ChatHistory> window = chatHistoryRepository.findRecentByDriverId(driverId, PageRequest.of(0, recentTurns));
+            if (window.size() < recentTurns) {
+                summarizing.remove(driverId);
+                return;
+            }
+            Long windowStart = window.get(window.size() - 1).getId();
+
+            ChatSummary current = summaryRepository.findById(driverId).orElse(null);
+            Long afterId = current == null ? 0L : current.getLastHistoryId();
+            // Chưa đủ một lô thì chờ thêm, để không tốn một lời gọi LLM cho mỗi câu trả lời
+            if (chatHistoryRepository.countBetween(driverId, afterId, windowStart) < foldBatchSize) {
+                summarizing.remove(driverId);
+                return;
+            }
+            List<ChatHistory> pending = chatHistoryRepository.findBetween(driverId, afterId, windowStart,
+                    PageRequest.of(0, foldBatchSize));
+
+            String previous = current == null ? null : current.getSummary();
+            Long lastFolded = pending.get(pending.size() - 1).getId();
+            geminiClient.generateBackground(List.of(Map.of("role", "user",
+                            "parts", List.of(Map.of("text", buildSummaryPrompt(previous, pending))))))
+                    .thenAcceptAsync(text -> {
+                        // forget() có thể chạy trong lúc đang tóm tắt: chỉ ghi nếu lịch sử vẫn còn
+                        if (summaryRepository.saveIfHistoryExists(driverId, truncate(text.trim()), lastFolded,
+                                LocalDateTime.now()) == 0) {
+                            logger.debug("Chat summary for driver {} discarded, history was cleared", driverId);
+                        }
+                    }, summaryExecutor)
+                    .whenComplete((ignored, error) -> {
+                        summarizing.remove(driverId);
+                        if (error != null) {
+                            logger.warn("Chat summary update failed for driver {}: {}", driverId, error.getMessage());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            summarizing.remove(driverId);
+            logger.warn("Chat summary update failed for driver {}: {}", driverId, e.getMessage());
+        }
+    }
+
+    private String buildSummaryPrompt(String previous, List<ChatHistory> pending) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Bạn đang duy trì bản tóm tắt ngắn gọn cuộc trò chuyện giữa tài xế xe điện và trợ lý.\n");
+        prompt.append("Hãy cập nhật bản tóm tắt với các lượt trao đổi mới bên dưới. ");
+        prompt.append("Giữ lại các thông tin, yêu cầu và quyết định quan trọng của tài xế; bỏ lời chào và chi tiết thừa. ");
+        prompt.append("Viết bằng tiếng Việt, tối đa khoảng ").append(maxSummaryWords()).append(" từ, chỉ trả về bản tóm tắt.\n\n");
+        prompt.append("Bản tóm tắt hiện tại:\n").append(previous == null ? "(chưa có)" : previous).append("\n\n");
+        prompt.append("Các lượt trao đổi mới:\n");
+        for (ChatHistory chat : pending) {
+            prompt.append("Tài xế: ").append(chat.getUserMessage()).append('\n');
+            prompt.append("Trợ lý: ").append(chat.getBotResponse()).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    private int maxSummaryWords() {
+        return Math.max(50, (int) (summaryMaxTokens * 0.6));
+    }
+
+    // Chặn cứng độ dài để bản tóm tắt không vượt ngân sách dù LLM trả lời dài
+    private String truncate(String text) {
+        int maxChars = (int) (summaryMaxTokens * charsPerToken);
+        return text.length() <= maxChars ? text : text.substring(0, maxChars);
+    }
+
+    private int estimateTokens(String text) {
+        return text == null ? 0 : (int) Math.ceil(text.length() / charsPerToken);
+    }
+}
@@ -0,0 +1,100 @@
+package project.code.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.code.model.ChatSummary;
+import project.code.repository.ChatHistoryRepository;
+import project.code.repository.ChatSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Dọn bảng chat_history định kỳ: xóa các lượt chat cũ hơn retentionDays và phần vượt maxPerDriver dòng
+ * của mỗi tài xế (giữ các dòng mới nhất). Xóa theo lô id, mỗi lô một transaction ngắn, để không khóa bảng lâu
+ * và không làm phình undo log.
+ * Chỉ xóa các dòng đã được gộp vào bản tóm tắt hội thoại (id <= ChatSummary.lastHistoryId); dòng chưa gộp được giữ lại
+ * dù đã quá hạn hoặc vượt giới hạn, và sẽ được dọn ở các lần chạy sau khi ChatContextManager đã gộp tới chúng.
+ */
+@Service
+public class ChatHistoryRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatHistoryRetentionService.class);
+
+    private final ChatHistoryRepository chatHistoryRepository;
+    private final ChatSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long retentionDays;
+    private final int maxPerDriver;
+    private final int batchSize;
+
+    public ChatHistoryRetentionService(ChatHistoryRepository chatHistoryRepository,
+                                       ChatSummaryRepository summaryRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${chatbot.history.retention-days:90}") long retentionDays,
+                                       @Value("${chatbot.history.max-per-driver:500}") int maxPerDriver,
+                                       @Value("${chatbot.history.purge-batch-size:1000}") int batchSize,
+                                       @Value("${chatbot.context.recent-turns:4}") int recentTurns) {
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        // Không bao giờ xóa các lượt chat ChatContextManager còn gửi nguyên văn
+        this.maxPerDriver = Math.max(maxPerDriver, recentTurns);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${chatbot.history.retention-interval-ms:3600000}",
+            initialDelayString = "${chatbot.history.retention-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long expired = deleteInBatches(() ->
+                chatHistoryRepository.findSummarizedIdsOlderThan(cutoff, PageRequest.of(0, batchSize)));
+
+        long trimmed = 0;
+        for (Long driverId : chatHistoryRepository.findDriverIdsWithMoreThan(maxPerDriver)) {
+            List<Long> oldestKept = chatHistoryRepository.findIdsByDriverIdNewestFirst(driverId,
+                    PageRequest.of(maxPerDriver - 1, 1));
+            Long summarizedUpTo = summaryRepository.findById(driverId).map(ChatSummary::getLastHistoryId).orElse(null);
+            if (oldestKept.isEmpty() || summarizedUpTo == null) {
+                continue;
+            }
+            // Xóa các dòng vượt giới hạn nhưng chỉ trong phần đã tóm tắt
+            Long keepFromId = Math.min(oldestKept.get(0), summarizedUpTo + 1);
+            trimmed += deleteInBatches(() ->
+                    chatHistoryRepository.findIdsByDriverIdBefore(driverId, keepFromId, PageRequest.of(0, batchSize)));
+        }
+
+        if (expired > 0 || trimmed > 0) {
+            logger.info("Chat history retention removed {} expired rows and {} rows over the per-driver limit",
+                    expired, trimmed);
+        }
+    }
+
+    private long deleteInBatches(Supplier<List<Long>> nextBatch) {
+        long deleted = 0;
+        while (true) {
+            List<Long> ids = nextBatch.get();
+            if (ids.isEmpty()) {
+                return deleted;
+            }
+            try {
+                Integer count = transactionTemplate.execute(status -> chatHistoryRepository.deleteByIdIn(ids));
+                deleted += count == null ? 0 : count;
+            } catch (Exception e) {
+                // Các dòng còn lại sẽ được xử lý ở lần chạy sau
+                logger.error("Chat history purge batch of {} failed: {}", ids.size(), e.getMessage());
+                return deleted;
+            }
+            if (ids.size() < batchSize) {
+                return deleted;
+            }
+        }
+    }
+}
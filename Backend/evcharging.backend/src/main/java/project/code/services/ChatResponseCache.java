@@ -0,0 +1,112 @@
+package project.code.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import project.code.dto.metrics.CacheStatsDto;
+import project.code.model.EVDriver;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Cache câu trả lời chatbot cho các câu hỏi lặp lại (giá sạc, cách đặt lịch, cách nạp ví...).
+ * Câu hỏi chung (Key.shared) được trả lời từ một prompt trung lập, không có hồ sơ, tóm tắt hay lịch sử của ai,
+ * nên câu trả lời dùng chung cho mọi tài xế được. Câu hỏi có ngôi thứ nhất hoặc nhắc tới dữ liệu cá nhân chỉ được
+ * cache trong phạm vi tài xế đó, key gắn thêm số liệu đưa vào system prompt nên số liệu đổi là key đổi.
+ * Câu hỏi quá ngắn hoặc phụ thuộc ngữ cảnh ("tại sao?", "còn cái kia thì sao") không được cache.
+ */
+@Component
+public class ChatResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.。,;:…]+$");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+
+    // So khớp trên văn bản đã bỏ dấu, nên câu gõ không dấu cũng được nhận ra
+    // (đại từ ngôi thứ nhất hoặc hỏi về số liệu của chính tài xế)
+    private static final Set<String> PERSONAL_WORDS = Set.of(
+            "toi", "minh", "em", "tao", "tui", "chung toi", "my", "me", "i", "mine",
+            "so du", "con bao nhieu", "con lai", "balance", "email", "lich su", "history");
+
+    // Câu hỏi nối tiếp, nghĩa phụ thuộc vào các lượt trước
+    private static final Set<String> CONTEXT_WORDS = Set.of(
+            "tai sao", "vi sao", "sao vay", "the con", "con cai", "cai do", "cai nay", "cai kia", "nhu vay",
+            "vay thi", "tiep", "tiep tuc", "o tren", "vua roi", "luc nay", "no", "do", "why", "it", "that", "this",
+            "above", "again", "more");
+
+    public record Key(String value, boolean shared) {
+    }
+
+    private final ReadThroughCache<String, String> cache;
+    private final int minQuestionLength;
+    private final int maxQuestionLength;
+
+    public ChatResponseCache(@Value("${chatbot.cache.max-entries:500}") int maxEntries,
+                             @Value("${chatbot.cache.ttl-seconds:3600}") long ttlSeconds,
+                             @Value("${chatbot.cache.min-question-length:12}") int minQuestionLength,
+                             @Value("${chatbot.cache.max-question-length:300}") int maxQuestionLength) {
+        this.cache = new ReadThroughCache<>("chatbot.responses", maxEntries, Duration.ofSeconds(ttlSeconds));
+        this.minQuestionLength = minQuestionLength;
+        this.maxQuestionLength = maxQuestionLength;
+    }
+
+    /**
+     * Key cho câu hỏi, hoặc null nếu câu hỏi không nên cache (quá ngắn, quá dài hoặc phụ thuộc ngữ cảnh).
+     * Gọi trong transaction vì có thể đọc danh sách xe của tài xế.
+     */
+    public Key keyFor(EVDriver driver, String question) {
+        String normalized = normalize(question);
+        if (normalized.length() < minQuestionLength || normalized.length() > maxQuestionLength) {
+            return null;
+        }
+        String words = " " + NON_WORD.matcher(stripDiacritics(normalized)).replaceAll(" ").trim() + " ";
+        if (containsAny(words, CONTEXT_WORDS)) {
+            return null;
+        }
+        if (!containsAny(words, PERSONAL_WORDS)) {
+            return new Key("global|" + normalized, true);
+        }
+        int vehicles = driver.getVehicles() != null ? driver.getVehicles().size() : 0;
+        return new Key("driver:" + driver.getId() + ":" + String.format(Locale.ROOT, "%.2f", driver.getWalletBalance())
+                + ":" + vehicles + "|" + normalized, false);
+    }
+
+    public String get(Key key) {
+        return key == null ? null : cache.getIfPresent(key.value());
+    }
+
+    public void put(Key key, String response) {
+        if (key != null && response != null && !response.isBlank()) {
+            cache.put(key.value(), response);
+        }
+    }
+
+    public CacheStatsDto getStats() {
+        return cache.getStats();
+    }
+
+    static String normalize(String question) {
+        String text = Normalizer.normalize(question, Normalizer.Form.NFC).toLowerCase(Locale.ROOT).trim();
+        text = WHITESPACE.matcher(text).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(text).replaceAll("");
+    }
+
+    static String stripDiacritics(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+    }
+
+    // words đã được đệm khoảng trắng hai đầu nên so khớp theo nguyên từ
+    private static boolean containsAny(String words, Set<String> phrases) {
+        for (String phrase : phrases) {
+            if (words.contains(" " + phrase + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
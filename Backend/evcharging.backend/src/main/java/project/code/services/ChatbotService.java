@@ -1,13 +1,17 @@
 package project.code.services;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.*;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import project.code.model.EVDriver;
 import project.code.model.ChatHistory;
@@ -15,110 +19,235 @@ import project.code.model.User;
 import project.code.repository.ChatHistoryRepository;
 import project.code.repository.EVDriverRepository;
 import project.code.dto.chatbot.ChatHistoryDto;
+import project.code.dto.chatbot.ChatHistoryPageDto;
+import project.code.dto.chatbot.ChatMessageResponse;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+/**
+ * Pipeline chatbot không giữ transaction trong lúc chờ LLM:
+ * đọc hồ sơ và lịch sử trong một transaction read-only ngắn, gọi Gemini bất đồng bộ qua GeminiClient,
+ * rồi chỉ lưu lịch sử trong transaction của lệnh insert.
+ */
 @Service
-@RequiredArgsConstructor
 public class ChatbotService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotService.class);
+
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    private static final String ASSISTANT_INTRO = """
+            Bạn là trợ lý AI thông minh cho ứng dụng sạc xe điện EV Charging Station.
+            """;
+
+    private static final String ASSISTANT_TASKS = """
+            Nhiệm vụ của bạn:
+            1. Trả lời các câu hỏi về hệ thống sạc xe điện
+            2. Hướng dẫn sử dụng các tính năng của ứng dụng
+            3. Cung cấp thông tin về trạm sạc, giá cả, thời gian sạc
+            4. Giải đáp thắc mắc về ví điện tử, thanh toán
+            5. Hỗ trợ đặt lịch sạc xe
+            
+            Hãy trả lời bằng tiếng Việt, thân thiện, ngắn gọn và hữu ích.
+            Nếu không chắc chắn về thông tin, hãy khuyên người dùng liên hệ bộ phận hỗ trợ.
+            """;
+
     private final ChatHistoryRepository chatHistoryRepository;
     private final EVDriverRepository evDriverRepository;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-
-    @Value("${gemini.api.key}")
-    private String geminiApiKey;
+    private final GeminiClient geminiClient;
+    private final ChatResponseCache responseCache;
+    private final ChatContextManager contextManager;
+    private final TransactionTemplate readOnlyTx;
+    private final long streamTimeoutMillis;
+    // Lưu lịch sử sau khi có câu trả lời (JDBC, chặn): pool riêng, không dùng thread I/O của GeminiClient
+    private final ThreadPoolExecutor persistenceExecutor;
 
-    private static final String MODEL = "gemini-2.0-flash";
+    public ChatbotService(ChatHistoryRepository chatHistoryRepository,
+                          EVDriverRepository evDriverRepository,
+                          GeminiClient geminiClient,
+                          ChatResponseCache responseCache,
+                          ChatContextManager contextManager,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${chatbot.stream.timeout-ms:130000}") long streamTimeoutMillis,
+                          @Value("${chatbot.persistence.threads:4}") int persistenceThreads,
+                          @Value("${chatbot.persistence.queue-capacity:500}") int persistenceQueueCapacity) {
+        this.chatHistoryRepository = chatHistoryRepository;
+        this.evDriverRepository = evDriverRepository;
+        this.geminiClient = geminiClient;
+        this.responseCache = responseCache;
+        this.contextManager = contextManager;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
 
-    @Transactional
-    public String chat(User currentUser, String userMessage) {
-        EVDriver driver = evDriverRepository.findByUserAccount(currentUser)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy hồ sơ EVDriver"));
+        // Hàng đợi có giới hạn: khi DB chậm, lượt chat mới bị từ chối (503) thay vì dồn việc vô hạn trong bộ nhớ
+        AtomicInteger counter = new AtomicInteger();
+        this.persistenceExecutor = new ThreadPoolExecutor(persistenceThreads, persistenceThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(persistenceQueueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "chat-persist-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, executor) -> {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trợ lý đang quá tải, vui lòng thử lại sau.");
+                });
+    }
 
-        // Lấy lịch sử chat gần đây (20 tin nhắn cuối)
-        List<ChatHistory> recentHistory = chatHistoryRepository
-                .findTop20ByDriverOrderByTimestampDesc(driver);
+    @PreDestroy
+    public void shutdown() {
+        persistenceExecutor.shutdown();
+    }
 
-        // Xây dựng context từ lịch sử
-        List<Map<String, String>> messages = buildMessagesWithHistory(recentHistory, userMessage);
+    // Dữ liệu cần cho một lượt chat, đọc xong trước khi gọi LLM; cachedResponse khác null thì không cần gọi LLM
+    private record ChatContext(Long driverId, ChatResponseCache.Key cacheKey, String cachedResponse, List<Map<String, Object>> contents) {
+    }
 
-        // Gọi Gemini API
-        String botResponse = callGeminiAPI(messages, driver);
+    public CompletableFuture<String> chat(User currentUser, String userMessage) {
+        ChatContext context = readOnlyTx.execute(status -> loadContext(currentUser, userMessage));
 
-        // Lưu vào database
-        ChatHistory chatHistory = ChatHistory.builder()
-                .driver(driver)
-                .userMessage(userMessage)
-                .botResponse(botResponse)
-                .build();
-        chatHistoryRepository.save(chatHistory);
+        if (context.cachedResponse() != null) {
+            saveHistory(context.driverId(), userMessage, context.cachedResponse());
+            return CompletableFuture.completedFuture(context.cachedResponse());
+        }
 
-        return botResponse;
+        return geminiClient.generate(context.contents())
+                .thenApplyAsync(botResponse -> {
+                    saveHistory(context.driverId(), userMessage, botResponse);
+                    responseCache.put(context.cacheKey(), botResponse);
+                    return botResponse;
+                }, persistenceExecutor);
     }
 
-    private List<Map<String, String>> buildMessagesWithHistory(
-            List<ChatHistory> history, String currentMessage) {
-        
-        List<Map<String, String>> messages = new ArrayList<>();
+    /**
+     * Bản streaming của chat: mỗi đoạn text từ Gemini được đẩy ngay cho client dưới dạng event "chunk",
+     * câu trả lời đầy đủ được lưu vào lịch sử rồi gửi event "done"; lỗi được báo bằng event "error".
+     */
+    public SseEmitter chatStream(User currentUser, String userMessage) {
+        ChatContext context = readOnlyTx.execute(status -> loadContext(currentUser, userMessage));
 
-        // Thêm lịch sử (đảo ngược để đúng thứ tự thời gian)
-        for (int i = history.size() - 1; i >= 0; i--) {
-            ChatHistory chat = history.get(i);
-            messages.add(Map.of("role", "user", "content", chat.getUserMessage()));
-            messages.add(Map.of("role", "assistant", "content", chat.getBotResponse()));
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        AtomicBoolean clientGone = new AtomicBoolean();
+        emitter.onCompletion(() -> clientGone.set(true));
+        emitter.onTimeout(() -> clientGone.set(true));
+        emitter.onError(e -> clientGone.set(true));
+
+        if (context.cachedResponse() != null) {
+            // Trúng cache: gửi cả câu trả lời trong một chunk, không gọi LLM
+            saveHistory(context.driverId(), userMessage, context.cachedResponse());
+            try {
+                send(emitter, "chunk", Map.of("text", context.cachedResponse()));
+                send(emitter, "done", new ChatMessageResponse(context.cachedResponse(), System.currentTimeMillis()));
+                emitter.complete();
+            } catch (RuntimeException e) {
+                logger.debug("Chat stream closed before cached reply was sent: {}", e.getMessage());
+            }
+            return emitter;
         }
 
-        // Thêm tin nhắn hiện tại
-        messages.add(Map.of("role", "user", "content", currentMessage));
+        geminiClient.stream(context.contents(), chunk -> {
+                    // Ném StreamCancelledException sẽ hủy luồng upstream; GeminiClient đếm riêng, không coi là lỗi upstream
+                    if (clientGone.get()) {
+                        throw new GeminiClient.StreamCancelledException("Client đã ngắt kết nối");
+                    }
+                    try {
+                        send(emitter, "chunk", Map.of("text", chunk));
+                    } catch (RuntimeException e) {
+                        clientGone.set(true);
+                        throw new GeminiClient.StreamCancelledException("Client đã ngắt kết nối: " + e.getMessage());
+                    }
+                })
+                .thenApplyAsync(botResponse -> {
+                    saveHistory(context.driverId(), userMessage, botResponse);
+                    responseCache.put(context.cacheKey(), botResponse);
+                    return botResponse;
+                }, persistenceExecutor)
+                .whenComplete((botResponse, error) -> {
+                    try {
+                        if (error == null) {
+                            send(emitter, "done", new ChatMessageResponse(botResponse, System.currentTimeMillis()));
+                        } else if (!clientGone.get()) {
+                            send(emitter, "error", Map.of("message", errorMessage(error)));
+                        }
+                        emitter.complete();
+                    } catch (RuntimeException e) {
+                        logger.debug("Chat stream closed before final event: {}", e.getMessage());
+                    }
+                });
 
-        return messages;
+        return emitter;
     }
 
-    private String callGeminiAPI(List<Map<String, String>> messages, EVDriver driver) {
+    private void send(SseEmitter emitter, String event, Object data) {
         try {
-            // URL đầy đủ với API key trong query param
-            String apiUrl = String.format(
-                "https://generativelanguage.googleapis.com/v1beta/models/%s:generateContent?key=%s",
-                MODEL,
-                geminiApiKey
-            );
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+    private String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ResponseStatusException statusException && statusException.getReason() != null) {
+            return statusException.getReason();
+        }
+        return "Xin lỗi, đã có lỗi xảy ra. Vui lòng thử lại sau.";
+    }
 
-            // Chuyển đổi messages sang format Gemini
-            List<Map<String, Object>> geminiContents = convertToGeminiFormat(messages, driver);
+    private ChatContext loadContext(User currentUser, String userMessage) {
+        EVDriver driver = evDriverRepository.findByUserAccount(currentUser)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy hồ sơ EVDriver"));
 
-            Map<String, Object> requestBody = Map.of("contents", geminiContents);
+        ChatResponseCache.Key cacheKey = responseCache.keyFor(driver, userMessage);
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            return new ChatContext(driver.getId(), cacheKey, cached, null);
+        }
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        // Câu trả lời dùng chung cho mọi tài xế: chỉ sinh từ prompt trung lập, không có dữ liệu của tài xế này
+        if (cacheKey != null && cacheKey.shared()) {
+            return new ChatContext(driver.getId(), cacheKey, null,
+                    convertToGeminiFormat(List.of(Map.of("role", "user", "content", userMessage)), null, null));
+        }
 
-            ResponseEntity<String> response = restTemplate.postForEntity(apiUrl, request, String.class);
+        // Tóm tắt cuốn chiếu + vài lượt gần nhất, gói trong ngân sách token
+        ChatContextManager.Conversation conversation = contextManager.build(driver.getId(), userMessage);
 
-            // Parse response của Gemini
-            JsonNode jsonResponse = objectMapper.readTree(response.getBody());
-            return jsonResponse.get("candidates").get(0)
-                    .get("content").get("parts").get(0)
-                    .get("text").asText();
+        return new ChatContext(driver.getId(), cacheKey, null,
+                convertToGeminiFormat(conversation.messages(), driver, conversation.summary()));
+    }
 
-        } catch (Exception e) {
-            System.err.println("Gemini API Error: " + e.getMessage());
-            throw new RuntimeException("Lỗi khi gọi Gemini API: " + e.getMessage());
-        }
+    // save() của repository tự mở transaction riêng, chỉ bao quanh lệnh insert
+    private void saveHistory(Long driverId, String userMessage, String botResponse) {
+        ChatHistory chatHistory = ChatHistory.builder()
+                .driver(evDriverRepository.getReferenceById(driverId))
+                .userMessage(userMessage)
+                .botResponse(botResponse)
+                .build();
+        chatHistoryRepository.save(chatHistory);
+        contextManager.onTurnSaved(driverId);
     }
 
     private List<Map<String, Object>> convertToGeminiFormat(
-            List<Map<String, String>> messages, EVDriver driver) {
+            List<Map<String, String>> messages, EVDriver driver, String summary) {
         
         List<Map<String, Object>> geminiContents = new ArrayList<>();
         
         // Thêm system prompt vào đầu
-        String systemPrompt = buildSystemPrompt(driver);
+        String systemPrompt = buildSystemPrompt(driver, summary);
         geminiContents.add(Map.of(
             "role", "user",
             "parts", List.of(Map.of("text", systemPrompt))
@@ -145,9 +274,14 @@ public class ChatbotService {
         return geminiContents;
     }
 
-    private String buildSystemPrompt(EVDriver driver) {
-        return String.format("""
-            Bạn là trợ lý AI thông minh cho ứng dụng sạc xe điện EV Charging Station.
+    // driver = null: prompt trung lập cho câu trả lời dùng chung, không chứa thông tin của người dùng nào
+    private String buildSystemPrompt(EVDriver driver, String summary) {
+        if (driver == null) {
+            return ASSISTANT_INTRO + "\n" + ASSISTANT_TASKS
+                    + "\nCâu trả lời có thể được dùng cho nhiều người dùng: không giả định thông tin cá nhân nào; "
+                    + "nếu cần số liệu tài khoản, hãy hướng dẫn người dùng xem trong ứng dụng.\n";
+        }
+        String prompt = ASSISTANT_INTRO + String.format("""
             
             Thông tin người dùng hiện tại:
             - Tên: %s
@@ -155,45 +289,67 @@ public class ChatbotService {
             - Số dư ví: %.2f VNĐ
             - Số lượng xe: %d
             
-            Nhiệm vụ của bạn:
-            1. Trả lời các câu hỏi về hệ thống sạc xe điện
-            2. Hướng dẫn sử dụng các tính năng của ứng dụng
-            3. Cung cấp thông tin về trạm sạc, giá cả, thời gian sạc
-            4. Giải đáp thắc mắc về ví điện tử, thanh toán
-            5. Hỗ trợ đặt lịch sạc xe
-            
-            Hãy trả lời bằng tiếng Việt, thân thiện, ngắn gọn và hữu ích.
-            Nếu không chắc chắn về thông tin, hãy khuyên người dùng liên hệ bộ phận hỗ trợ.
             """,
                 driver.getUserAccount().getName(),
                 driver.getUserAccount().getEmail(),
                 driver.getWalletBalance(),
                 driver.getVehicles() != null ? driver.getVehicles().size() : 0
-        );
+        ) + ASSISTANT_TASKS;
+        if (summary != null && !summary.isBlank()) {
+            prompt += "\nTóm tắt các cuộc trò chuyện trước với người dùng này:\n" + summary + "\n";
+        }
+        return prompt;
     }
 
+    // Chỉ trả về trang mới nhất; các trang cũ hơn lấy qua getChatHistoryPage
     @Transactional(readOnly = true)
     public List<ChatHistoryDto> getChatHistory(User currentUser) {
         EVDriver driver = evDriverRepository.findByUserAccount(currentUser)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy hồ sơ EVDriver"));
 
-        return chatHistoryRepository.findByDriverOrderByTimestampDesc(driver)
+        return chatHistoryRepository.findPageByDriverId(driver.getId(), null, PageRequest.of(0, MAX_HISTORY_PAGE_SIZE))
                 .stream()
-                .map(chat -> new ChatHistoryDto(
-                        chat.getId(),
-                        chat.getUserMessage(),
-                        chat.getBotResponse(),
-                        chat.getTimestamp()
-                ))
+                .map(this::toHistoryDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Phân trang keyset theo id (mới trước): cursor là nextCursor của trang trước, null cho trang đầu.
+     * Lấy dư một dòng để biết còn trang tiếp theo hay không.
+     */
+    public ChatHistoryPageDto getChatHistoryPage(User currentUser, Long cursor, Integer size) {
+        EVDriver driver = evDriverRepository.findByUserAccount(currentUser)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy hồ sơ EVDriver"));
+
+        int pageSize = size == null ? DEFAULT_HISTORY_PAGE_SIZE : Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        List<ChatHistory> rows = chatHistoryRepository.findPageByDriverId(driver.getId(), cursor,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatHistoryDto> items = rows.stream()
+                .limit(pageSize)
+                .map(this::toHistoryDto)
                 .collect(Collectors.toList());
+        Long nextCursor = hasMore ? items.get(items.size() - 1).id() : null;
+        return new ChatHistoryPageDto(items, nextCursor, hasMore);
     }
 
+    // Một câu DELETE theo driver_id thay vì nạp toàn bộ lịch sử rồi xóa từng dòng
     @Transactional
     public void clearChatHistory(User currentUser) {
         EVDriver driver = evDriverRepository.findByUserAccount(currentUser)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy hồ sơ EVDriver"));
 
-        List<ChatHistory> history = chatHistoryRepository.findByDriverOrderByTimestampDesc(driver);
-        chatHistoryRepository.deleteAll(history);
+        chatHistoryRepository.deleteByDriverId(driver.getId());
+        contextManager.forget(driver.getId());
+    }
+
+    private ChatHistoryDto toHistoryDto(ChatHistory chat) {
+        return new ChatHistoryDto(
+                chat.getId(),
+                chat.getUserMessage(),
+                chat.getBotResponse(),
+                chat.getTimestamp()
+        );
     }
 }
\ No newline at end of file
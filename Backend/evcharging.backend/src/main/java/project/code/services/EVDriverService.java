@@ -9,6 +9,7 @@ import project.code.model.EVDriver;
 import project.code.model.PaymentMethod;
 import project.code.model.User;
 import project.code.model.Vehicle;
+import project.code.model.enums.WalletTransactionType;
 import project.code.repository.EVDriverRepository;
 import project.code.repository.PaymentMethodRepository;
 import project.code.repository.UserRepository;
@@ -16,6 +17,7 @@ import project.code.repository.VehicleRepository;
 
 import project.code.dto.wallet.WalletTopUpRequest;
 import project.code.dto.wallet.WalletBalanceApiResponse;
+import project.code.dto.wallet.WalletTransactionDto;
 
 import project.code.dto.evdriver.EVDriverProfileDto;
 import project.code.dto.evdriver.UpdateEvDriverRequest;
@@ -26,6 +28,7 @@ import project.code.dto.vehicle.VehicleDto;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,6 +39,7 @@ public class EVDriverService {
     private final UserRepository userRepository;
     private final VehicleRepository vehicleRepository;
     private final PaymentMethodRepository paymentMethodRepository;
+    private final WalletService walletService;
 
     @Transactional(readOnly = true)
     public EVDriverProfileDto getDriverProfile(User currentUser) {
@@ -147,31 +151,34 @@ public class EVDriverService {
         );
     }
 
+    // idempotencyKey do client gửi (header Idempotency-Key); bấm nạp lại hoặc retry mạng không nạp hai lần
     @Transactional
-    public WalletBalanceApiResponse topUpWallet(User currentUser, WalletTopUpRequest request) {
+    public WalletBalanceApiResponse topUpWallet(User currentUser, WalletTopUpRequest request, String idempotencyKey) {
 
         EVDriver driver = findDriverProfileByUser(currentUser);
 
-        double oldBalance = driver.getWalletBalance();
-        double amountToAdd = request.amount();
-        double newBalance = oldBalance + amountToAdd;
+        String key = (idempotencyKey == null || idempotencyKey.isBlank())
+                ? UUID.randomUUID().toString()
+                : idempotencyKey;
 
-        System.out.println("Driver ID: " + driver.getId());
-        System.out.println("Số dư cũ (từ DB): " + oldBalance);
-        System.out.println("Số dư mới (đã tính toán): " + newBalance);
-
-        driver.setWalletBalance(newBalance);
-        evDriverRepository.save(driver);
+        WalletService.WalletEntryResult result = walletService.apply(driver, WalletTransactionType.TOP_UP,
+                request.amount(), "TOP_UP:" + driver.getId() + ":" + key, request.paymentMethodId());
 
         return new WalletBalanceApiResponse(
                 driver.getId(),
                 currentUser.getEmail(),
-                oldBalance,
-                amountToAdd,
-                newBalance
+                result.oldBalance(),
+                request.amount(),
+                result.newBalance()
         );
     }
 
+    @Transactional(readOnly = true)
+    public List<WalletTransactionDto> getWalletTransactions(User currentUser, int page, int size) {
+        EVDriver driver = findDriverProfileByUser(currentUser);
+        return walletService.getTransactions(driver, page, size);
+    }
+
     private EVDriver findDriverProfileByUser(User user) {
         return evDriverRepository.findByUserAccount(user)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hồ sơ EVDriver cho người dùng: " + user.getEmail()));
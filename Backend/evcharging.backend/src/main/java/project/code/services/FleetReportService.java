@@ -0,0 +1,205 @@
+package project.code.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import project.code.dto.report.FleetReportResultDto;
+import project.code.dto.report.SessionTotalsDto;
+import project.code.dto.report.StationReportTimingDto;
+import project.code.model.enums.ReportType;
+import project.code.repository.ChargingStationRepository;
+import project.code.repository.ReportRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class FleetReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetReportService.class);
+
+    private static final List<ReportType> DEFAULT_TYPES = List.of(ReportType.REVENUE, ReportType.USAGE);
+
+    // Dựa vào unique key (station_id, report_type, period_start, period_end): tạo lại thì cập nhật số liệu
+    private static final String UPSERT_REPORT_SQL =
+            "INSERT INTO reports (report_type, period_start, period_end, station_id, " +
+            "total_sessions, total_energy, total_revenue) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_sessions = VALUES(total_sessions), " +
+            "total_energy = VALUES(total_energy), total_revenue = VALUES(total_revenue)";
+
+    // Job định kỳ: report đã có thì giữ nguyên, kể cả khi hai lần chạy (hoặc hai node) chạy cùng lúc
+    private static final String INSERT_IGNORE_REPORT_SQL =
+            "INSERT IGNORE INTO reports (report_type, period_start, period_end, station_id, " +
+            "total_sessions, total_energy, total_revenue) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final StationHourlyStatsService hourlyStatsService;
+    private final ChargingStationRepository stationRepository;
+    private final ReportRepository reportRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int insertBatchSize;
+
+    public FleetReportService(StationHourlyStatsService hourlyStatsService,
+                              ChargingStationRepository stationRepository,
+                              ReportRepository reportRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${reports.batch.threads:4}") int threads,
+                              @Value("${reports.batch.queue-capacity:500}") int queueCapacity,
+                              @Value("${reports.batch.insert-batch-size:500}") int insertBatchSize) {
+        this.hourlyStatsService = hourlyStatsService;
+        this.stationRepository = stationRepository;
+        this.reportRepository = reportRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertBatchSize = insertBatchSize;
+
+        // Pool cố định, hàng đợi có giới hạn; khi đầy thì thread gọi tự chạy task (tự điều tiết tải)
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "fleet-report-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Tạo report cho mọi trạm trong kỳ. Mỗi trạm được tính song song trên pool riêng,
+     * kết quả được ghi xuống bảng reports bằng JDBC batch insert.
+     */
+    public FleetReportResultDto generateForAllStations(List<ReportType> reportTypes,
+                                                       LocalDateTime periodStart,
+                                                       LocalDateTime periodEnd) {
+        return generateForAllStations(reportTypes, periodStart, periodEnd, false);
+    }
+
+    /**
+     * Như trên; nếu skipExisting = true thì bỏ qua các cặp (trạm, loại) đã có report
+     * cho đúng kỳ này, để job chạy lại nhiều lần vẫn không sinh bản trùng.
+     * Việc lọc trước chỉ để khỏi tính lại; chống trùng thực sự do unique key của bảng reports và INSERT IGNORE.
+     */
+    public FleetReportResultDto generateForAllStations(List<ReportType> reportTypes,
+                                                       LocalDateTime periodStart,
+                                                       LocalDateTime periodEnd,
+                                                       boolean skipExisting) {
+        if (periodStart.isAfter(periodEnd)) {
+            throw new IllegalArgumentException("Thời gian kết thúc phải sau thời gian bắt đầu.");
+        }
+        List<ReportType> types = (reportTypes == null || reportTypes.isEmpty()) ? DEFAULT_TYPES : reportTypes;
+
+        long startedAt = System.nanoTime();
+        List<Long> stationIds = stationRepository.findAllStationIds();
+
+        Map<ReportType, Set<Long>> existing = new EnumMap<>(ReportType.class);
+        if (skipExisting) {
+            for (ReportType type : types) {
+                existing.put(type, new HashSet<>(
+                        reportRepository.findStationIdsWithReport(type, periodStart, periodEnd)));
+            }
+        }
+
+        List<CompletableFuture<StationReportTimingDto>> futures = new ArrayList<>(stationIds.size());
+        for (Long stationId : stationIds) {
+            if (skipExisting && types.stream().allMatch(t -> existing.get(t).contains(stationId))) {
+                continue;
+            }
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> computeStation(stationId, periodStart, periodEnd), executor));
+        }
+
+        List<StationReportTimingDto> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<StationReportTimingDto> future : futures) {
+            results.add(future.join());
+        }
+
+        // Số dòng trả về của batch không phân biệt được thêm mới/cập nhật (và là -2 khi driver gộp batch),
+        // nên số report mới được tính bằng số report của kỳ trước và sau khi ghi
+        long before = reportRepository.countForPeriod(types, periodStart, periodEnd);
+        int written = insertReports(results, types, existing, periodStart, periodEnd, skipExisting);
+        int created = (int) (reportRepository.countForPeriod(types, periodStart, periodEnd) - before);
+        // INSERT IGNORE không cập nhật; phần chênh lệch là các dòng một lần chạy song song đã ghi trước
+        int updated = skipExisting ? 0 : Math.max(written - created, 0);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        logger.info("Fleet report {} -> {}: {} stations, {} reports created, {} updated, {} ms",
+                periodStart, periodEnd, stationIds.size(), created, updated, elapsedMillis);
+
+        return new FleetReportResultDto(periodStart, periodEnd, stationIds.size(), created, updated,
+                elapsedMillis, results);
+    }
+
+    private StationReportTimingDto computeStation(Long stationId, LocalDateTime periodStart, LocalDateTime periodEnd) {
+        long t0 = System.nanoTime();
+        try {
+            SessionTotalsDto totals = hourlyStatsService.sumTotals(stationId, periodStart, periodEnd);
+            return new StationReportTimingDto(
+                    stationId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0),
+                    totals.totalSessions().intValue(),
+                    totals.totalEnergy(),
+                    totals.totalRevenue(),
+                    null
+            );
+        } catch (Exception e) {
+            logger.error("Fleet report failed for station {}: {}", stationId, e.getMessage());
+            return new StationReportTimingDto(
+                    stationId,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0),
+                    0, 0.0, 0.0,
+                    e.getMessage()
+            );
+        }
+    }
+
+    private int insertReports(List<StationReportTimingDto> results, List<ReportType> types,
+                              Map<ReportType, Set<Long>> existing,
+                              LocalDateTime periodStart, LocalDateTime periodEnd, boolean skipExisting) {
+        List<Object[]> rows = new ArrayList<>();
+        for (StationReportTimingDto r : results) {
+            if (r.error() != null) {
+                continue;
+            }
+            for (ReportType type : types) {
+                if (existing.getOrDefault(type, Set.of()).contains(r.stationId())) {
+                    continue;
+                }
+                rows.add(new Object[]{
+                        type.name(),
+                        Timestamp.valueOf(periodStart),
+                        Timestamp.valueOf(periodEnd),
+                        r.stationId(),
+                        r.totalSessions(),
+                        r.totalEnergy(),
+                        r.totalRevenue()
+                });
+            }
+        }
+
+        String sql = skipExisting ? INSERT_IGNORE_REPORT_SQL : UPSERT_REPORT_SQL;
+        for (int from = 0; from < rows.size(); from += insertBatchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + insertBatchSize, rows.size())));
+        }
+        // Số dòng đã gửi xuống (thêm mới, cập nhật hoặc bị bỏ qua)
+        return rows.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,391 @@
+package project.code.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import project.code.dto.metrics.ChatbotPipelineStatsDto;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Client gọi Gemini generateContent bằng java.net.http.HttpClient bất đồng bộ: không giữ thread nào trong lúc chờ LLM.
+ * Có timeout kết nối/đọc và bulkhead (Semaphore) giới hạn số lời gọi đồng thời; hết chỗ thì từ chối ngay với 503.
+ * URL gốc cấu hình được (chatbot.llm.base-url) để dùng server giả lập khi chạy load test.
+ */
+@Component
+public class GeminiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiClient.class);
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Semaphore bulkhead;
+    private final Semaphore backgroundBulkhead;
+    private final int maxConcurrentCalls;
+    private final long bulkheadWaitMillis;
+    private final Duration readTimeout;
+    private final long streamTimeoutMillis;
+    private final String baseUrl;
+    private final String model;
+    private final String apiKey;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    // Thời gian từ lúc gửi request streaming tới đoạn text đầu tiên (time-to-first-chunk)
+    private final LongAdder firstChunks = new LongAdder();
+    private final LongAdder totalFirstChunkNanos = new LongAdder();
+    private final AtomicLong maxFirstChunkNanos = new AtomicLong();
+
+    /**
+     * Người nhận ngừng nhận stream (client ngắt kết nối). Không phải lỗi của upstream: được đếm riêng
+     * là cancelled, không tính vào failed và không log ERROR.
+     */
+    public static final class StreamCancelledException extends RuntimeException {
+        public StreamCancelledException(String message) {
+            super(message);
+        }
+    }
+
+    public GeminiClient(ObjectMapper objectMapper,
+                        @Value("${gemini.api.key}") String apiKey,
+                        @Value("${chatbot.llm.base-url:https://generativelanguage.googleapis.com/v1beta}") String baseUrl,
+                        @Value("${chatbot.llm.model:gemini-2.0-flash}") String model,
+                        @Value("${chatbot.llm.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                        @Value("${chatbot.llm.read-timeout-ms:25000}") long readTimeoutMillis,
+                        @Value("${chatbot.llm.stream-timeout-ms:120000}") long streamTimeoutMillis,
+                        @Value("${chatbot.llm.max-concurrent-calls:32}") int maxConcurrentCalls,
+                        @Value("${chatbot.llm.bulkhead-wait-ms:200}") long bulkheadWaitMillis,
+                        @Value("${chatbot.llm.max-background-calls:2}") int maxBackgroundCalls,
+                        @Value("${chatbot.llm.threads:4}") int threads) {
+        this.objectMapper = objectMapper;
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.model = model;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.backgroundBulkhead = new Semaphore(maxBackgroundCalls);
+
+        // Chỉ dành cho I/O của HttpClient và parse kết quả, không chạy việc chặn (JDBC);
+        // vài thread là đủ, số lời gọi đang chờ LLM do bulkhead giới hạn
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "llm-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Gửi contents (định dạng Gemini) và trả về text của candidate đầu tiên.
+     * Future kết thúc lỗi với ResponseStatusException 503 (bulkhead đầy), 504 (quá thời gian) hoặc 502 (lỗi upstream).
+     */
+    public CompletableFuture<String> generate(List<Map<String, Object>> contents) {
+        return generate(contents, bulkhead, bulkheadWaitMillis);
+    }
+
+    /**
+     * Như generate nhưng cho việc nền (tóm tắt hội thoại): dùng nhóm permit riêng, nhỏ hơn, để không chiếm chỗ
+     * của các lượt chat. Hết permit thì thất bại ngay với 503, caller thử lại ở lượt sau.
+     */
+    public CompletableFuture<String> generateBackground(List<Map<String, Object>> contents) {
+        return generate(contents, backgroundBulkhead, 0);
+    }
+
+    private CompletableFuture<String> generate(List<Map<String, Object>> contents, Semaphore permits, long waitMillis) {
+        HttpRequest request;
+        try {
+            request = buildRequest(":generateContent", contents);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Không tạo được request Gemini", e));
+        }
+
+        if (!acquire(permits, waitMillis)) {
+            return CompletableFuture.failedFuture(permits == bulkhead ? rejectedError()
+                    : new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Không còn chỗ cho lời gọi nền"));
+        }
+
+        long startedAt = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> releaseAndRecord(permits, startedAt))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw translate(error);
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        failed.increment();
+                        logger.error("Gemini API returned {}: {}", response.statusCode(), response.body());
+                        throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Lỗi khi gọi Gemini API: HTTP " + response.statusCode());
+                    }
+                    String text = extractText(response.body());
+                    completed.increment();
+                    return text;
+                });
+    }
+
+    /**
+     * Gọi streamGenerateContent (SSE) và chuyển từng đoạn text cho onChunk ngay khi nhận được.
+     * Các dòng được xử lý bởi một Flow.Subscriber nên không có thread nào bị chặn trong lúc LLM sinh câu trả lời.
+     * Future trả về toàn bộ câu trả lời đã ghép; nếu onChunk ném lỗi thì hủy luồng upstream.
+     * onChunk ném StreamCancelledException khi client đã ngắt kết nối: future kết thúc với chính exception đó.
+     */
+    public CompletableFuture<String> stream(List<Map<String, Object>> contents, Consumer<String> onChunk) {
+        HttpRequest request;
+        try {
+            request = buildRequest(":streamGenerateContent?alt=sse", contents);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Không tạo được request Gemini", e));
+        }
+
+        if (!acquire(bulkhead, bulkheadWaitMillis)) {
+            return CompletableFuture.failedFuture(rejectedError());
+        }
+
+        long startedAt = System.nanoTime();
+        SseLineSubscriber subscriber = new SseLineSubscriber(onChunk, startedAt);
+        // Kiểm tra status ngay khi có header, trước khi body bắt đầu chảy vào subscriber
+        HttpResponse.BodyHandler<Void> handler = info -> {
+            if (info.statusCode() / 100 != 2) {
+                logger.error("Gemini streaming API returned {}", info.statusCode());
+                subscriber.result.completeExceptionally(new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                        "Lỗi khi gọi Gemini API: HTTP " + info.statusCode()));
+                return HttpResponse.BodySubscribers.discarding();
+            }
+            return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+        };
+        httpClient.sendAsync(request, handler)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        subscriber.result.completeExceptionally(error);
+                    }
+                });
+
+        return subscriber.result
+                .orTimeout(streamTimeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((text, error) -> {
+                    if (error != null) {
+                        subscriber.cancel();
+                    }
+                    releaseAndRecord(bulkhead, startedAt);
+                })
+                .handle((text, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        if (cause instanceof StreamCancelledException cancellation) {
+                            cancelled.increment();
+                            logger.debug("Gemini stream cancelled: {}", cancellation.getMessage());
+                            throw cancellation;
+                        }
+                        if (cause instanceof ResponseStatusException statusException) {
+                            failed.increment();
+                            throw statusException;
+                        }
+                        throw translate(cause instanceof TimeoutException ? new HttpTimeoutException("stream timed out") : cause);
+                    }
+                    completed.increment();
+                    return text;
+                });
+    }
+
+    public ChatbotPipelineStatsDto getStats() {
+        long done = completed.sum() + failed.sum() + timedOut.sum() + cancelled.sum();
+        long firstChunkCount = firstChunks.sum();
+        return new ChatbotPipelineStatsDto(
+                maxConcurrentCalls,
+                maxConcurrentCalls - bulkhead.availablePermits(),
+                completed.sum(),
+                failed.sum(),
+                rejected.sum(),
+                timedOut.sum(),
+                cancelled.sum(),
+                done == 0 ? 0.0 : totalLatencyNanos.sum() / 1_000_000.0 / done,
+                TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()),
+                firstChunkCount == 0 ? 0.0 : totalFirstChunkNanos.sum() / 1_000_000.0 / firstChunkCount,
+                TimeUnit.NANOSECONDS.toMillis(maxFirstChunkNanos.get())
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private HttpRequest buildRequest(String method, List<Map<String, Object>> contents) throws JsonProcessingException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/models/" + model + method))
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .header("x-goog-api-key", apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("contents", contents))))
+                .build();
+    }
+
+    private ResponseStatusException rejectedError() {
+        rejected.increment();
+        logger.warn("LLM bulkhead full ({} calls in flight), chat rejected", maxConcurrentCalls);
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trợ lý đang quá tải, vui lòng thử lại sau.");
+    }
+
+    private void releaseAndRecord(Semaphore permits, long startedAt) {
+        permits.release();
+        long latency = System.nanoTime() - startedAt;
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    private void recordFirstChunk(long startedAt) {
+        long elapsed = System.nanoTime() - startedAt;
+        firstChunks.increment();
+        totalFirstChunkNanos.add(elapsed);
+        maxFirstChunkNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private boolean acquire(Semaphore permits, long waitMillis) {
+        try {
+            return permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private RuntimeException translate(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            timedOut.increment();
+            logger.warn("Gemini API timed out: {}", cause.getMessage());
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Trợ lý phản hồi quá lâu, vui lòng thử lại.");
+        }
+        failed.increment();
+        logger.error("Gemini API error: {}", cause.getMessage());
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Lỗi khi gọi Gemini API: " + cause.getMessage());
+    }
+
+    private String extractText(String body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            return json.get("candidates").get(0)
+                    .get("content").get("parts").get(0)
+                    .get("text").asText();
+        } catch (Exception e) {
+            failed.increment();
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Phản hồi Gemini không hợp lệ");
+        }
+    }
+
+    // Đọc từng dòng "data: {...}" của luồng SSE từ Gemini, mỗi dòng là một GenerateContentResponse chứa một đoạn text
+    private final class SseLineSubscriber implements Flow.Subscriber<String> {
+        private final Consumer<String> onChunk;
+        private final long startedAt;
+        private final StringBuilder assembled = new StringBuilder();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        SseLineSubscriber(Consumer<String> onChunk, long startedAt) {
+            this.onChunk = onChunk;
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            try {
+                if (line.startsWith("data:")) {
+                    String chunk = chunkText(line.substring(5).trim());
+                    if (!chunk.isEmpty()) {
+                        if (assembled.length() == 0) {
+                            recordFirstChunk(startedAt);
+                        }
+                        assembled.append(chunk);
+                        onChunk.accept(chunk);
+                    }
+                }
+                subscription.request(1);
+            } catch (RuntimeException e) {
+                cancel();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(assembled.toString());
+        }
+
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+
+        private String chunkText(String data) {
+            try {
+                JsonNode parts = objectMapper.readTree(data).path("candidates").path(0).path("content").path("parts");
+                StringBuilder text = new StringBuilder();
+                for (JsonNode part : parts) {
+                    text.append(part.path("text").asText(""));
+                }
+                return text.toString();
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Phản hồi Gemini không hợp lệ");
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package project.code.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.code.dto.metrics.InvoiceOutboxStatsDto;
+import project.code.model.InvoiceOutbox;
+import project.code.model.enums.OutboxStatus;
+import project.code.repository.ChargeSessionRepository;
+import project.code.repository.InvoiceOutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox cho việc tạo hóa đơn sau khi dừng phiên sạc.
+ * stopSession chỉ ghi một dòng PENDING trong cùng transaction; dispatcher định kỳ lấy các dòng đến hạn
+ * theo lô, tạo hóa đơn, và thử lại với backoff khi lỗi thay vì bỏ qua hóa đơn.
+ */
+@Service
+public class InvoiceOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceOutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final String MISSING_SESSION_ERROR = "Phiên sạc không còn tồn tại, không tạo hóa đơn";
+
+    private final InvoiceOutboxRepository outboxRepository;
+    private final InvoiceService invoiceService;
+    private final ChargeSessionRepository chargeSessionRepository;
+    private final TransactionTemplate claimTx;
+    private final TransactionTemplate workTx;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+
+    private final LongAdder invoicesCreated = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder permanentFailures = new LongAdder();
+    private final LongAdder missingSessions = new LongAdder();
+    private final LongAdder lagTotalMillis = new LongAdder();
+    private final LongAdder lagSamples = new LongAdder();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile LocalDateTime lastRunAt;
+
+    public InvoiceOutboxService(InvoiceOutboxRepository outboxRepository,
+                                InvoiceService invoiceService,
+                                ChargeSessionRepository chargeSessionRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${invoices.outbox.batch-size:100}") int batchSize,
+                                @Value("${invoices.outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${invoices.outbox.base-backoff-ms:2000}") long baseBackoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.invoiceService = invoiceService;
+        this.chargeSessionRepository = chargeSessionRepository;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+
+        // Transaction ngoài giữ khóa các dòng outbox; việc tạo hóa đơn chạy trong transaction riêng
+        // để lỗi của một lô/một phiên không kéo rollback phần ghi nhận retry
+        this.claimTx = new TransactionTemplate(transactionManager);
+        this.workTx = new TransactionTemplate(transactionManager);
+        this.workTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Gọi trong transaction của stopSession: commit cùng lúc với phiên COMPLETED
+    @Transactional
+    public void enqueue(Long sessionId) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(InvoiceOutbox.builder()
+                .sessionId(sessionId)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${invoices.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        int processed;
+        do {
+            Integer count = claimTx.execute(status -> dispatchBatch());
+            processed = count == null ? 0 : count;
+        } while (processed == batchSize);
+        lastRunAt = LocalDateTime.now();
+    }
+
+    @Transactional
+    public int requeueFailed() {
+        return outboxRepository.requeueFailed(LocalDateTime.now());
+    }
+
+    @Transactional(readOnly = true)
+    public InvoiceOutboxStatsDto getStats() {
+        long oldestAgeSeconds = outboxRepository.findOldestCreatedAtByStatus(OutboxStatus.PENDING)
+                .map(t -> Math.max(0, Duration.between(t, LocalDateTime.now()).getSeconds()))
+                .orElse(0L);
+        long samples = lagSamples.sum();
+        return new InvoiceOutboxStatsDto(
+                outboxRepository.countByStatus(OutboxStatus.PENDING),
+                outboxRepository.countByStatus(OutboxStatus.FAILED),
+                oldestAgeSeconds,
+                invoicesCreated.sum(),
+                retries.sum(),
+                permanentFailures.sum(),
+                missingSessions.sum(),
+                samples == 0 ? 0.0 : (double) lagTotalMillis.sum() / samples,
+                maxLagMillis.get(),
+                lastBatchSize,
+                lastRunAt
+        );
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<InvoiceOutbox> batch = outboxRepository.lockDueBatch(now, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        lastBatchSize = batch.size();
+
+        List<Long> sessionIds = batch.stream().map(InvoiceOutbox::getSessionId).collect(Collectors.toList());
+        Set<Long> existing = new HashSet<>(chargeSessionRepository.findExistingIds(sessionIds));
+        List<InvoiceOutbox> work = new ArrayList<>(batch.size());
+        for (InvoiceOutbox entry : batch) {
+            if (existing.contains(entry.getSessionId())) {
+                work.add(entry);
+            } else {
+                markMissingSession(entry);
+            }
+        }
+
+        List<Long> workSessionIds = work.stream().map(InvoiceOutbox::getSessionId).collect(Collectors.toList());
+        try {
+            Integer created = workTx.execute(status -> invoiceService.generateInvoicesForSessions(workSessionIds));
+            invoicesCreated.add(created == null ? 0 : created);
+            work.forEach(this::markDone);
+        } catch (Exception batchError) {
+            // Cả lô lỗi: xử lý lại từng phiên để chỉ phiên hỏng phải chờ retry
+            for (InvoiceOutbox entry : work) {
+                try {
+                    Integer created = workTx.execute(status ->
+                            invoiceService.generateInvoicesForSessions(List.of(entry.getSessionId())));
+                    invoicesCreated.add(created == null ? 0 : created);
+                    markDone(entry);
+                } catch (Exception e) {
+                    markFailedAttempt(entry, e);
+                }
+            }
+        }
+
+        outboxRepository.saveAll(batch);
+        return batch.size();
+    }
+
+    private void markDone(InvoiceOutbox entry) {
+        LocalDateTime now = LocalDateTime.now();
+        entry.setStatus(OutboxStatus.DONE);
+        entry.setProcessedAt(now);
+        entry.setLastError(null);
+
+        long lag = Math.max(0, Duration.between(entry.getCreatedAt(), now).toMillis());
+        lagTotalMillis.add(lag);
+        lagSamples.increment();
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    // Phiên bị xóa sau khi vào outbox: không còn gì để lập hóa đơn, kết thúc dòng nhưng giữ lý do và đếm riêng
+    private void markMissingSession(InvoiceOutbox entry) {
+        entry.setStatus(OutboxStatus.DONE);
+        entry.setProcessedAt(LocalDateTime.now());
+        entry.setLastError(MISSING_SESSION_ERROR);
+        missingSessions.increment();
+        logger.warn("Invoice outbox entry {} closed without invoice: session {} no longer exists",
+                entry.getOutboxId(), entry.getSessionId());
+    }
+
+    private void markFailedAttempt(InvoiceOutbox entry, Exception e) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        String message = String.valueOf(e.getMessage());
+        entry.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (attempts >= maxAttempts) {
+            entry.setStatus(OutboxStatus.FAILED);
+            permanentFailures.increment();
+            logger.error("Invoice outbox gave up on session {} after {} attempts: {}",
+                    entry.getSessionId(), attempts, message);
+        } else {
+            // Backoff lũy thừa: 2s, 4s, 8s, ...
+            long delay = baseBackoffMillis << Math.min(attempts - 1, 20);
+            entry.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(delay)));
+            retries.increment();
+            logger.warn("Invoice outbox attempt {} failed for session {}: {}",
+                    attempts, entry.getSessionId(), message);
+        }
+    }
+}
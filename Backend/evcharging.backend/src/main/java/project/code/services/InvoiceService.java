@@ -10,6 +10,7 @@ import project.code.model.Invoice;
 import project.code.model.PaymentMethod;
 import project.code.model.User;
 import project.code.model.enums.InvoiceStatus;
+import project.code.repository.ChargeSessionRepository;
 import project.code.repository.EVDriverRepository;
 import project.code.repository.InvoiceRepository;
 import project.code.repository.PaymentMethodRepository;
@@ -17,8 +18,12 @@ import project.code.dto.invoice.InvoiceDto;
 
 import jakarta.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +33,7 @@ public class InvoiceService {
     private final InvoiceRepository invoiceRepository;
     private final PaymentMethodRepository paymentMethodRepository;
     private final EVDriverRepository evDriverRepository;
+    private final ChargeSessionRepository chargeSessionRepository;
 
     @Transactional(readOnly = true)
     public List<InvoiceDto> getAllInvoices(User currentUser) {
@@ -60,19 +66,36 @@ public class InvoiceService {
             throw new IllegalStateException("Chỉ có thể tạo hóa đơn cho phiên sạc đã hoàn thành.");
         }
 
-        Invoice invoice = Invoice.builder()
-                .chargeSession(completedSession)
-                .driver(completedSession.getDriver())
-                .issueDate(LocalDateTime.now())
-                .totalEnergy(completedSession.getEnergyUsed())
-                .amount(completedSession.getCost())
-                .status(InvoiceStatus.PAID)
-                .build();
-
-        Invoice savedInvoice = invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(buildInvoice(completedSession));
         return mapToDto(savedInvoice);
     }
 
+    /**
+     * Tạo hóa đơn cho một lô phiên sạc (dùng bởi InvoiceOutboxService).
+     * Phiên đã có hóa đơn thì bỏ qua nên xử lý lại cùng lô vẫn an toàn. Trả về số hóa đơn đã tạo.
+     */
+    @Transactional
+    public int generateInvoicesForSessions(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> invoiced = new HashSet<>(invoiceRepository.findSessionIdsWithInvoice(sessionIds));
+
+        List<Invoice> invoices = new ArrayList<>();
+        for (ChargeSession session : chargeSessionRepository.findAllById(sessionIds)) {
+            if (invoiced.contains(session.getSessionId())) {
+                continue;
+            }
+            if (session.getStatus() != project.code.model.enums.SessionStatus.COMPLETED) {
+                throw new IllegalStateException("Chỉ có thể tạo hóa đơn cho phiên sạc đã hoàn thành: " + session.getSessionId());
+            }
+            invoices.add(buildInvoice(session));
+        }
+
+        invoiceRepository.saveAll(invoices);
+        return invoices.size();
+    }
+
     @Transactional
     public InvoiceDto payInvoice(Long invoiceId, Long paymentMethodId, User currentUser) {
 
@@ -116,6 +139,17 @@ public class InvoiceService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hồ sơ EVDriver cho người dùng: " + user.getEmail()));
     }
 
+    private Invoice buildInvoice(ChargeSession completedSession) {
+        return Invoice.builder()
+                .chargeSession(completedSession)
+                .driver(completedSession.getDriver())
+                .issueDate(LocalDateTime.now())
+                .totalEnergy(completedSession.getEnergyUsed())
+                .amount(completedSession.getCost())
+                .status(InvoiceStatus.PAID)
+                .build();
+    }
+
     private Invoice findInvoiceByIdOrThrow(Long invoiceId) {
         return invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy hóa đơn: " + invoiceId));
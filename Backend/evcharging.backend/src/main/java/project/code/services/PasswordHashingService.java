@@ -0,0 +1,145 @@
+package project.code.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import project.code.dto.metrics.LoginPipelineStatsDto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chạy các thao tác BCrypt (hash khi đăng ký, verify khi đăng nhập) trên pool riêng có giới hạn,
+ * để bão đăng nhập không chiếm hết thread Tomcat. Kết quả trả về dạng CompletableFuture nên thread request
+ * được nhả ra trong lúc chờ. Hàng đợi nhỏ hơn nhiều so với pool request của Tomcat (mặc định 200),
+ * nên khi quá tải thì chính pool này từ chối ngay với 503, trước khi Tomcat hết thread.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${application.security.bcrypt.threads:0}") int threads,
+                                  @Value("${application.security.bcrypt.queue-capacity:32}") int queueCapacity,
+                                  @Value("${application.security.bcrypt.timeout-ms:5000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+
+        // Mặc định bằng số CPU: BCrypt thuần CPU nên nhiều thread hơn cũng không nhanh hơn
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Đưa task vào pool BCrypt, không chờ. Future kết thúc lỗi với ResponseStatusException 503 khi hàng đợi đầy
+     * hoặc quá timeout; RuntimeException của task (vd: BadCredentialsException) được giữ nguyên làm nguyên nhân.
+     * Task còn nằm trong hàng đợi khi đã quá timeout thì bị bỏ qua, không tốn CPU cho request đã trả lỗi.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        final long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                totalQueueWaitNanos.add(System.nanoTime() - submittedAt);
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("Password hashing queue full ({} waiting), request rejected", executor.getQueue().size());
+            return CompletableFuture.failedFuture(overloaded());
+        }
+
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    long latency = System.nanoTime() - submittedAt;
+                    totalLatencyNanos.add(latency);
+                    maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                    if (error == null) {
+                        completed.increment();
+                        return value;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        timedOut.increment();
+                        throw overloaded();
+                    }
+                    failed.increment();
+                    throw cause instanceof RuntimeException runtimeException
+                            ? runtimeException : new CompletionException(cause);
+                });
+    }
+
+    public LoginPipelineStatsDto getStats() {
+        long done = completed.sum() + failed.sum() + timedOut.sum();
+        return new LoginPipelineStatsDto(
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                completed.sum(),
+                failed.sum(),
+                rejected.sum(),
+                timedOut.sum(),
+                done == 0 ? 0.0 : totalQueueWaitNanos.sum() / 1_000_000.0 / done,
+                done == 0 ? 0.0 : totalLatencyNanos.sum() / 1_000_000.0 / done,
+                TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get())
+        );
+    }
+
+    private ResponseStatusException overloaded() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hệ thống đang quá tải, vui lòng thử lại sau.");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,172 @@
+package project.code.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.code.dto.metrics.CacheStatsDto;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache đọc xuyên (read-through) trong bộ nhớ: giới hạn số entry (bỏ entry ít dùng nhất), mỗi entry có TTL.
+ * Giá trị null từ loader không được lưu. Mỗi lần invalidate tăng generation, nên một loader đang chạy
+ * từ trước khi invalidate sẽ không ghi đè dữ liệu cũ vào cache.
+ * Các request cùng miss một key đợi chung một lần nạp (single-flight) thay vì mỗi request tự gọi loader.
+ */
+public class ReadThroughCache<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final Duration ttl;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ReadThroughCache(String name, int maxEntries, Duration ttl) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        CompletableFuture<V> inFlight;
+        CompletableFuture<V> load = null;
+        synchronized (this) {
+            V cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            inFlight = loading.get(key);
+            if (inFlight == null) {
+                load = new CompletableFuture<>();
+                loading.put(key, load);
+            }
+            loadGeneration = generation;
+        }
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        try {
+            V value = loader.apply(key);
+            if (value != null) {
+                put(key, value, loadGeneration);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                loading.remove(key, load);
+            }
+        }
+    }
+
+    // Cho loader bất đồng bộ: tra cache (tính hit/miss) rồi tự put khi có kết quả
+    public synchronized V getIfPresent(K key) {
+        return lookup(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        put(key, value, generation);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        // Request đến sau khi invalidate không đợi lần nạp đang chạy từ dữ liệu cũ
+        loading.clear();
+        generation++;
+        invalidations.increment();
+    }
+
+    // Xóa sau khi transaction hiện tại commit; trước commit người đọc vẫn thấy dữ liệu cũ trong DB
+    public void invalidateAllAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    public synchronized CacheStatsDto getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return new CacheStatsDto(
+                name,
+                entries.size(),
+                maxEntries,
+                ttl.getSeconds(),
+                hitCount,
+                missCount,
+                requests == 0 ? 0.0 : (double) hitCount / requests,
+                evictions.sum(),
+                invalidations.sum()
+        );
+    }
+
+    private static <T> T await(CompletableFuture<T> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            // Lỗi của loader được ném lại nguyên dạng cho mọi request đang đợi
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private V lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.value();
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses.increment();
+        return null;
+    }
+
+    private synchronized void put(K key, V value, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttl.toNanos()));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+}
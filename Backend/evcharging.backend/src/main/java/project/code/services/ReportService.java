@@ -5,13 +5,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.code.model.*;
 import project.code.model.enums.ReportType;
-import project.code.model.enums.SessionStatus;
-import project.code.repository.ChargeSessionRepository;
 import project.code.repository.ChargingStationRepository;
 import project.code.repository.ReportRepository;
 
 import project.code.dto.report.GenerateReportRequest;
 import project.code.dto.report.ReportDto;
+import project.code.dto.report.SessionTotalsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,7 +23,7 @@ public class ReportService {
 
     private final ReportRepository reportRepository;
     private final ChargingStationRepository stationRepository;
-    private final ChargeSessionRepository chargeSessionRepository;
+    private final StationHourlyStatsService hourlyStatsService;
 
     @Transactional(readOnly = true)
     public List<ReportDto> getAllReports() {
@@ -91,26 +90,24 @@ public class ReportService {
         ChargingStation station = stationRepository.findById(request.stationId())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy Trạm ID: " + request.stationId()));
 
-        List<ChargeSession> sessions = chargeSessionRepository.findAllByStationAndStatusAndEndTimeBetween(
+        SessionTotalsDto totals = hourlyStatsService.sumTotals(
                 station,
-                SessionStatus.COMPLETED,
                 request.periodStart(),
                 request.periodEnd()
         );
 
-        int totalSessions = sessions.size();
-        double totalEnergy = sessions.stream().mapToDouble(ChargeSession::getEnergyUsed).sum();
-        double totalRevenue = sessions.stream().mapToDouble(ChargeSession::getCost).sum();
-
-        Report report = Report.builder()
-                .reportType(type)
-                .station(station)
-                .periodStart(request.periodStart())
-                .periodEnd(request.periodEnd())
-                .totalSessions(totalSessions)
-                .totalEnergy(totalEnergy)
-                .totalRevenue(totalRevenue)
-                .build();
+        // Tạo lại report của cùng trạm/loại/kỳ thì cập nhật số liệu thay vì thêm bản trùng
+        Report report = reportRepository.findByStationAndReportTypeAndPeriodStartAndPeriodEnd(
+                        station, type, request.periodStart(), request.periodEnd())
+                .orElseGet(() -> Report.builder()
+                        .reportType(type)
+                        .station(station)
+                        .periodStart(request.periodStart())
+                        .periodEnd(request.periodEnd())
+                        .build());
+        report.setTotalSessions(totals.totalSessions().intValue());
+        report.setTotalEnergy(totals.totalEnergy());
+        report.setTotalRevenue(totals.totalRevenue());
 
         Report savedReport = reportRepository.save(report);
         return mapToDto(savedReport);
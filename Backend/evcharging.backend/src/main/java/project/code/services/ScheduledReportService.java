@@ -0,0 +1,74 @@
+package project.code.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import project.code.dto.report.FleetReportResultDto;
+import project.code.model.enums.ReportPeriod;
+import project.code.model.enums.ReportType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+@Service
+public class ScheduledReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledReportService.class);
+
+    private final FleetReportService fleetReportService;
+    private final List<ReportType> reportTypes;
+    private final ZoneId zoneId;
+
+    public ScheduledReportService(FleetReportService fleetReportService,
+                                  @Value("${reports.schedule.types:REVENUE,USAGE}") List<ReportType> reportTypes,
+                                  @Value("${reports.schedule.zone:}") String zone) {
+        this.fleetReportService = fleetReportService;
+        this.reportTypes = reportTypes;
+        this.zoneId = zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+    }
+
+    // Múi giờ của lịch cron; "kỳ trước" cũng phải tính theo múi giờ này
+    public ZoneId zoneId() {
+        return zoneId;
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(zoneId);
+    }
+
+    // Tạo report cho kỳ vừa kết thúc tính đến ngày 'today'. Chạy lại nhiều lần không sinh bản trùng.
+    public FleetReportResultDto generateForPreviousPeriod(ReportPeriod period, LocalDate today) {
+        LocalDate periodStart = switch (period) {
+            case DAILY -> today.minusDays(1);
+            case WEEKLY -> today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+            case MONTHLY -> today.withDayOfMonth(1).minusMonths(1);
+        };
+        LocalDate nextPeriodStart = switch (period) {
+            case DAILY -> periodStart.plusDays(1);
+            case WEEKLY -> periodStart.plusWeeks(1);
+            case MONTHLY -> periodStart.plusMonths(1);
+        };
+
+        // Report dùng BETWEEN (bao gồm 2 đầu) nên kết thúc kỳ lùi 1 micro giây để không đếm trùng sang kỳ sau
+        LocalDateTime start = periodStart.atStartOfDay();
+        LocalDateTime end = nextPeriodStart.atStartOfDay().minusNanos(1000);
+
+        FleetReportResultDto result = fleetReportService.generateForAllStations(reportTypes, start, end, true);
+        logger.info("Scheduled {} reports {} -> {}: {} created in {} ms",
+                period, start, end, result.reportsCreated(), result.elapsedMillis());
+        return result;
+    }
+
+    public void runScheduled(ReportPeriod period) {
+        try {
+            generateForPreviousPeriod(period, today());
+        } catch (Exception e) {
+            logger.error("Scheduled {} report generation failed: {}", period, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package project.code.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.code.dto.station.PointStatusCountDto;
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
+import project.code.repository.ChargingPointRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bộ đếm số điểm sạc (tổng và AVAILABLE) theo trạm và loại đầu sạc, giữ trong bộ nhớ.
+ * Mọi chuyển trạng thái của ChargingPoint (tạo, xóa, đổi loại/trạng thái, bắt đầu/dừng phiên sạc) cập nhật bộ đếm
+ * sau khi transaction commit, nên các truy vấn "trạm còn cổng CCS trống" không phải quét bảng charging_points.
+ * Nạp lúc khởi động và đối soát định kỳ với DB theo từng trạm để sửa sai lệch (ví dụ thay đổi từ node khác).
+ */
+@Component
+@RequiredArgsConstructor
+public class StationAvailabilityCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(StationAvailabilityCounters.class);
+
+    private static final int TYPES = ConnectorType.values().length;
+
+    private final ChargingPointRepository chargingPointRepository;
+
+    private volatile Map<Long, Counts> stations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        Map<Long, Counts> loaded = loadFromDatabase();
+        stations = loaded;
+        logger.info("Station availability counters loaded for {} stations", loaded.size());
+    }
+
+    /**
+     * Đối soát với DB theo từng trạm, không thay cả map: ghi lại version của mỗi trạm trước khi đọc DB,
+     * và chỉ ghi đè số đếm của trạm không nhận delta nào trong lúc đọc. Trạm có delta trong lúc đọc được giữ nguyên
+     * (delta không bị mất hay cộng hai lần) và sẽ được đối soát ở lần chạy sau.
+     */
+    @Scheduled(fixedDelayString = "${stations.availability.reconcile-interval-ms:600000}",
+            initialDelayString = "${stations.availability.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Map<Long, Long> versions = new HashMap<>();
+        stations.forEach((stationId, counts) -> versions.put(stationId, counts.version()));
+
+        Map<Long, Counts> loaded = loadFromDatabase();
+        long drifted = 0;
+        for (Map.Entry<Long, Counts> e : loaded.entrySet()) {
+            Long version = versions.get(e.getKey());
+            // Trạm chưa có trong bộ nhớ lúc bắt đầu thì tạo mới; trạm đã bị xóa trong lúc đọc thì bỏ qua
+            Counts current = version == null ? counts(e.getKey()) : stations.get(e.getKey());
+            if (current != null && current.replaceIfUnchanged(version == null ? 0 : version, e.getValue())) {
+                drifted++;
+            }
+        }
+        for (Map.Entry<Long, Long> e : versions.entrySet()) {
+            Counts current = stations.get(e.getKey());
+            if (!loaded.containsKey(e.getKey()) && current != null
+                    && current.replaceIfUnchanged(e.getValue(), new Counts())) {
+                drifted++;
+            }
+        }
+        if (drifted > 0) {
+            logger.warn("Station availability counters corrected for {} stations", drifted);
+        }
+    }
+
+    public int available(Long stationId) {
+        Counts counts = stations.get(stationId);
+        return counts == null ? 0 : counts.availableTotal();
+    }
+
+    // type = null nghĩa là mọi loại đầu sạc
+    public int available(Long stationId, ConnectorType type) {
+        if (type == null) {
+            return available(stationId);
+        }
+        Counts counts = stations.get(stationId);
+        return counts == null ? 0 : counts.available(type);
+    }
+
+    // Các trạm còn ít nhất một điểm AVAILABLE (đúng loại nếu type khác null), không sắp thứ tự
+    public List<Long> stationsWithAvailable(ConnectorType type) {
+        List<Long> result = new ArrayList<>();
+        stations.forEach((stationId, counts) -> {
+            if ((type == null ? counts.availableTotal() : counts.available(type)) > 0) {
+                result.add(stationId);
+            }
+        });
+        return result;
+    }
+
+    public int total(Long stationId) {
+        Counts counts = stations.get(stationId);
+        return counts == null ? 0 : counts.totalAll();
+    }
+
+    public void pointAddedAfterCommit(Long stationId, ConnectorType type, ChargingPointStatus status) {
+        runAfterCommit(() -> counts(stationId).add(type, status, 1));
+    }
+
+    public void pointRemovedAfterCommit(Long stationId, ConnectorType type, ChargingPointStatus status) {
+        runAfterCommit(() -> counts(stationId).add(type, status, -1));
+    }
+
+    public void pointChangedAfterCommit(Long stationId, ConnectorType oldType, ChargingPointStatus oldStatus,
+                                        ConnectorType newType, ChargingPointStatus newStatus) {
+        if (oldType == newType && oldStatus == newStatus) {
+            return;
+        }
+        runAfterCommit(() -> counts(stationId).move(oldType, oldStatus, newType, newStatus));
+    }
+
+    public void stationRemovedAfterCommit(Long stationId) {
+        runAfterCommit(() -> stations.remove(stationId));
+    }
+
+    private Counts counts(Long stationId) {
+        return stations.computeIfAbsent(stationId, id -> new Counts());
+    }
+
+    private Map<Long, Counts> loadFromDatabase() {
+        List<PointStatusCountDto> rows = chargingPointRepository.countGroupedByStationTypeAndStatus();
+        Map<Long, Counts> loaded = new ConcurrentHashMap<>();
+        for (PointStatusCountDto row : rows) {
+            loaded.computeIfAbsent(row.stationId(), id -> new Counts())
+                    .add(row.type(), row.status(), row.count().intValue());
+        }
+        return loaded;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Đếm theo ordinal của ConnectorType; một chuyển trạng thái đổi cả hai ô trong cùng một khối synchronized.
+    // version tăng theo mỗi delta để reconcile biết trạm có thay đổi trong lúc đọc DB hay không
+    private static final class Counts {
+        private final int[] total = new int[TYPES];
+        private final int[] available = new int[TYPES];
+        private long version;
+
+        synchronized void add(ConnectorType type, ChargingPointStatus status, int delta) {
+            version++;
+            total[type.ordinal()] += delta;
+            if (status == ChargingPointStatus.AVAILABLE) {
+                available[type.ordinal()] += delta;
+            }
+        }
+
+        synchronized void move(ConnectorType oldType, ChargingPointStatus oldStatus,
+                               ConnectorType newType, ChargingPointStatus newStatus) {
+            add(oldType, oldStatus, -1);
+            add(newType, newStatus, 1);
+        }
+
+        synchronized int available(ConnectorType type) {
+            return available[type.ordinal()];
+        }
+
+        synchronized int availableTotal() {
+            int sum = 0;
+            for (int a : available) {
+                sum += a;
+            }
+            return sum;
+        }
+
+        synchronized int totalAll() {
+            int sum = 0;
+            for (int t : total) {
+                sum += t;
+            }
+            return sum;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        // Ghi đè bằng số đếm từ DB nếu chưa có delta nào kể từ expectedVersion và số đếm khác nhau
+        synchronized boolean replaceIfUnchanged(long expectedVersion, Counts loaded) {
+            if (version != expectedVersion) {
+                return false;
+            }
+            synchronized (loaded) {
+                if (Arrays.equals(total, loaded.total) && Arrays.equals(available, loaded.available)) {
+                    return false;
+                }
+                System.arraycopy(loaded.total, 0, total, 0, TYPES);
+                System.arraycopy(loaded.available, 0, available, 0, TYPES);
+            }
+            return true;
+        }
+    }
+}
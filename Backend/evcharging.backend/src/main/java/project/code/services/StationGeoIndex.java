@@ -0,0 +1,160 @@
+package project.code.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.code.dto.station.StationLocationDto;
+import project.code.model.ChargingStation.StationStatus;
+import project.code.repository.ChargingStationRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục không gian trong bộ nhớ cho các trạm có tọa độ: lưới ô vuông cellDegrees x cellDegrees độ.
+ * Tìm trạm trong bán kính R chỉ duyệt các ô phủ hình chữ nhật bao quanh vòng tròn, rồi lọc bằng khoảng cách haversine.
+ * Nạp một lần khi khởi động và cập nhật sau khi các transaction của ChargingStationService commit.
+ */
+@Component
+public class StationGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StationGeoIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private final ChargingStationRepository stationRepository;
+    private final double cellDegrees;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    public StationGeoIndex(ChargingStationRepository stationRepository,
+                           @Value("${stations.geo.cell-degrees:0.05}") double cellDegrees) {
+        this.stationRepository = stationRepository;
+        this.cellDegrees = cellDegrees;
+    }
+
+    public record Hit(Long stationId, double latitude, double longitude, StationStatus status, double distanceKm) {
+    }
+
+    @PostConstruct
+    public void load() {
+        List<StationLocationDto> locations = stationRepository.findAllLocations();
+        for (StationLocationDto l : locations) {
+            put(l.stationId(), l.latitude(), l.longitude(), l.status());
+        }
+        logger.info("Station geo index loaded {} stations", locations.size());
+    }
+
+    public synchronized void put(Long stationId, Double latitude, Double longitude, StationStatus status) {
+        remove(stationId);
+        if (latitude == null || longitude == null) {
+            return;
+        }
+        Entry entry = new Entry(stationId, latitude, longitude, status);
+        entries.put(stationId, entry);
+        cells.computeIfAbsent(cellKey(latitude, longitude), k -> ConcurrentHashMap.newKeySet()).add(stationId);
+    }
+
+    public synchronized void remove(Long stationId) {
+        Entry previous = entries.remove(stationId);
+        if (previous != null) {
+            cells.computeIfPresent(cellKey(previous.latitude(), previous.longitude()), (k, ids) -> {
+                ids.remove(stationId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // Chỉ áp dụng khi transaction hiện tại commit, để index không chứa thay đổi đã rollback
+    public void putAfterCommit(Long stationId, Double latitude, Double longitude, StationStatus status) {
+        runAfterCommit(() -> put(stationId, latitude, longitude, status));
+    }
+
+    public void removeAfterCommit(Long stationId) {
+        runAfterCommit(() -> remove(stationId));
+    }
+
+    /**
+     * Các trạm trong bán kính radiusKm quanh (latitude, longitude), sắp theo khoảng cách tăng dần.
+     * Không xét kinh tuyến 180 (các trạm nằm trong một vùng địa lý).
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm) {
+        double latSpan = radiusKm / KM_PER_DEGREE_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double lonSpan = radiusKm / (KM_PER_DEGREE_LAT * cosLat);
+
+        int minLatCell = cellIndex(Math.max(latitude - latSpan, -90.0));
+        int maxLatCell = cellIndex(Math.min(latitude + latSpan, 90.0));
+        int minLonCell = cellIndex(Math.max(longitude - lonSpan, -180.0));
+        int maxLonCell = cellIndex(Math.min(longitude + lonSpan, 180.0));
+
+        List<Hit> hits = new ArrayList<>();
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                Set<Long> ids = cells.get(cellKey(latCell, lonCell));
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    Entry e = entries.get(id);
+                    if (e == null) {
+                        continue;
+                    }
+                    double distance = haversineKm(latitude, longitude, e.latitude(), e.longitude());
+                    if (distance <= radiusKm) {
+                        hits.add(new Hit(e.stationId(), e.latitude(), e.longitude(), e.status(), distance));
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Entry(Long stationId, double latitude, double longitude, StationStatus status) {
+    }
+}
@@ -0,0 +1,161 @@
+package project.code.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.code.dto.report.SessionTotalsDto;
+import project.code.dto.report.SessionWindowDto;
+import project.code.model.ChargeSession;
+import project.code.model.ChargingStation;
+import project.code.model.enums.SessionStatus;
+import project.code.repository.ChargeSessionRepository;
+import project.code.repository.ChargingStationRepository;
+import project.code.repository.StationHourlyStatsRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+public class StationHourlyStatsService {
+
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+
+    private final StationHourlyStatsRepository hourlyStatsRepository;
+    private final ChargeSessionRepository chargeSessionRepository;
+    private final ChargingStationRepository stationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Gọi trong cùng transaction với stopSession để bucket luôn khớp với phiên đã COMPLETED
+    @Transactional
+    public void recordCompletedSession(ChargeSession session) {
+        Long stationId = session.getStation().getStationId();
+        for (HourlyContribution c : splitIntoHours(session.getStartTime(), session.getEndTime(),
+                session.getEnergyUsed(), session.getCost())) {
+            hourlyStatsRepository.upsertBucket(stationId, c.bucketStart(), c.sessions(),
+                    c.energy(), c.revenue(), c.busyMinutes());
+        }
+    }
+
+    /**
+     * Tổng phiên/kWh/doanh thu của các phiên COMPLETED có endTime trong [start, end].
+     * Phần trọn giờ đọc từ bucket, phần lẻ đầu/cuối đọc trực tiếp từ charge_sessions.
+     */
+    @Transactional(readOnly = true)
+    public SessionTotalsDto sumTotals(Long stationId, LocalDateTime start, LocalDateTime end) {
+        return sumTotals(stationRepository.getReferenceById(stationId), start, end);
+    }
+
+    @Transactional(readOnly = true)
+    public SessionTotalsDto sumTotals(ChargingStation station, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime alignedStart = start.truncatedTo(ChronoUnit.HOURS);
+        if (alignedStart.isBefore(start)) {
+            alignedStart = alignedStart.plusHours(1);
+        }
+        LocalDateTime alignedEnd = end.truncatedTo(ChronoUnit.HOURS);
+
+        if (!alignedStart.isBefore(alignedEnd)) {
+            return chargeSessionRepository.aggregateByStationAndStatusAndEndTimeBetween(
+                    station, SessionStatus.COMPLETED, start, end);
+        }
+
+        SessionTotalsDto head = chargeSessionRepository.aggregateByStationAndStatusAndEndTimeInRange(
+                station, SessionStatus.COMPLETED, start, alignedStart);
+        SessionTotalsDto body = hourlyStatsRepository.sumByStationAndBucketStartInRange(
+                station, alignedStart, alignedEnd);
+        SessionTotalsDto tail = chargeSessionRepository.aggregateByStationAndStatusAndEndTimeBetween(
+                station, SessionStatus.COMPLETED, alignedEnd, end);
+
+        return new SessionTotalsDto(
+                head.totalSessions() + body.totalSessions() + tail.totalSessions(),
+                head.totalEnergy() + body.totalEnergy() + tail.totalEnergy(),
+                head.totalRevenue() + body.totalRevenue() + tail.totalRevenue()
+        );
+    }
+
+    // Dựng lại toàn bộ bucket của một trạm từ charge_sessions. Trả về số bucket đã ghi.
+    @Transactional
+    public int rebuildStation(Long stationId) {
+        ChargingStation station = stationRepository.findById(stationId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy Trạm ID: " + stationId));
+        return rebuild(station);
+    }
+
+    // Mỗi trạm một transaction riêng: không giữ khóa trên cả bảng bucket suốt lần dựng lại, trạm đã xong được commit ngay
+    public int rebuildAll() {
+        int buckets = 0;
+        for (Long stationId : stationRepository.findAllStationIds()) {
+            Integer rebuilt = transactionTemplate.execute(status -> rebuildStation(stationId));
+            buckets += rebuilt == null ? 0 : rebuilt;
+        }
+        return buckets;
+    }
+
+    private int rebuild(ChargingStation station) {
+        hourlyStatsRepository.deleteByStation(station);
+
+        Map<LocalDateTime, HourlyContribution> buckets = new TreeMap<>();
+        long afterId = 0L;
+        List<SessionWindowDto> page;
+        do {
+            page = chargeSessionRepository.findWindowsByStationAndStatusAfter(
+                    station, SessionStatus.COMPLETED, afterId, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+            for (SessionWindowDto w : page) {
+                for (HourlyContribution c : splitIntoHours(w.startTime(), w.endTime(), w.energyUsed(), w.cost())) {
+                    buckets.merge(c.bucketStart(), c, HourlyContribution::plus);
+                }
+                afterId = w.sessionId();
+            }
+        } while (page.size() == BACKFILL_PAGE_SIZE);
+
+        for (HourlyContribution c : buckets.values()) {
+            hourlyStatsRepository.upsertBucket(station.getStationId(), c.bucketStart(), c.sessions(),
+                    c.energy(), c.revenue(), c.busyMinutes());
+        }
+        return buckets.size();
+    }
+
+    // Phiên, kWh và doanh thu tính vào giờ kết thúc; số phút bận được chia cho từng giờ phiên đi qua
+    private List<HourlyContribution> splitIntoHours(LocalDateTime start, LocalDateTime end,
+                                                    double energy, double revenue) {
+        List<HourlyContribution> result = new ArrayList<>();
+        if (end == null) {
+            return result;
+        }
+        LocalDateTime endBucket = end.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = (start != null && start.isBefore(end)) ? start : end;
+
+        for (LocalDateTime bucket = from.truncatedTo(ChronoUnit.HOURS); !bucket.isAfter(endBucket); bucket = bucket.plusHours(1)) {
+            LocalDateTime next = bucket.plusHours(1);
+            LocalDateTime overlapStart = from.isAfter(bucket) ? from : bucket;
+            LocalDateTime overlapEnd = end.isBefore(next) ? end : next;
+            double busyMinutes = Duration.between(overlapStart, overlapEnd).toMillis() / 60000.0;
+
+            boolean isEndBucket = bucket.equals(endBucket);
+            result.add(new HourlyContribution(
+                    bucket,
+                    isEndBucket ? 1 : 0,
+                    isEndBucket ? energy : 0.0,
+                    isEndBucket ? revenue : 0.0,
+                    Math.max(busyMinutes, 0.0)
+            ));
+        }
+        return result;
+    }
+
+    private record HourlyContribution(LocalDateTime bucketStart, int sessions, double energy,
+                                      double revenue, double busyMinutes) {
+        HourlyContribution plus(HourlyContribution other) {
+            return new HourlyContribution(bucketStart, sessions + other.sessions, energy + other.energy,
+                    revenue + other.revenue, busyMinutes + other.busyMinutes);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package project.code.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import project.code.dto.wallet.WalletTransactionDto;
+import project.code.model.EVDriver;
+import project.code.model.WalletTransaction;
+import project.code.model.enums.WalletTransactionType;
+import project.code.repository.EVDriverRepository;
+import project.code.repository.WalletTransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Mọi thay đổi số dư ví đi qua đây: ghi một dòng vào sổ cái wallet_transactions (chỉ thêm)
+ * và cộng dồn nguyên tử vào evdriver_profiles.wallet_balance trong cùng transaction.
+ * Mỗi thao tác mang một idempotency key; gửi lại cùng key sẽ trả về giao dịch cũ, không trừ/cộng lần hai.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletService {
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    private final WalletTransactionRepository transactionRepository;
+    private final EVDriverRepository evDriverRepository;
+
+    public record WalletEntryResult(double oldBalance, double newBalance, boolean duplicate) {
+    }
+
+    @Transactional
+    public WalletEntryResult apply(EVDriver driver, WalletTransactionType type, double amount,
+                                   String idempotencyKey, Long referenceId) {
+        Optional<WalletTransaction> existing = transactionRepository.findByIdempotencyKey(idempotencyKey);
+        if (existing.isPresent()) {
+            WalletTransaction tx = existing.get();
+            return new WalletEntryResult(tx.getBalanceAfter() - tx.getAmount(), tx.getBalanceAfter(), true);
+        }
+
+        // Khóa dòng của tài xế chỉ giữ từ lệnh UPDATE tới lúc commit
+        if (evDriverRepository.incrementWalletBalance(driver.getId(), amount) == 0) {
+            throw new EntityNotFoundException("Không tìm thấy EVDriver ID: " + driver.getId());
+        }
+        double newBalance = evDriverRepository.findWalletBalanceById(driver.getId())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy EVDriver ID: " + driver.getId()));
+
+        // Request trùng key chạy song song sẽ vướng unique key ở đây và bị rollback cả phần cộng số dư
+        transactionRepository.saveAndFlush(WalletTransaction.builder()
+                .driver(driver)
+                .type(type)
+                .amount(amount)
+                .balanceAfter(newBalance)
+                .idempotencyKey(idempotencyKey)
+                .referenceId(referenceId)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        return new WalletEntryResult(newBalance - amount, newBalance, false);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WalletTransactionDto> getTransactions(EVDriver driver, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_HISTORY_PAGE_SIZE);
+        return transactionRepository.findByDriverOrderByTransactionIdDesc(driver, PageRequest.of(Math.max(page, 0), pageSize))
+                .stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    private WalletTransactionDto mapToDto(WalletTransaction tx) {
+        return new WalletTransactionDto(
+                tx.getTransactionId(),
+                tx.getType(),
+                tx.getAmount(),
+                tx.getBalanceAfter(),
+                tx.getReferenceId(),
+                tx.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,21 @@
+package project.code.config;
+
+import org.hibernate.dialect.H2Dialect;
+
+import java.sql.Types;
+
+/**
+ * H2Dialect của Hibernate 6.4 khai báo kiểu double là FLOAT($p) và không điền precision khi CAST tham số
+ * trong phép cộng (ví dụ wallet_balance + :delta), nên H2 không parse được câu lệnh. Dùng DOUBLE PRECISION
+ * cho cả cột lẫn CAST. Chỉ dùng cho test trên H2.
+ */
+public class H2TestDialect extends H2Dialect {
+
+    @Override
+    protected String columnType(int sqlTypeCode) {
+        if (sqlTypeCode == Types.FLOAT || sqlTypeCode == Types.DOUBLE) {
+            return "double precision";
+        }
+        return super.columnType(sqlTypeCode);
+    }
+}
@@ -0,0 +1,78 @@
+package project.code.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import project.code.model.User;
+import project.code.model.enums.Role;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtConfigTest {
+
+    // 256 bit, base64
+    private static final String SECRET = "MDEyMzQ1Njc4OTAxMjM0NTY3ODkwMTIzNDU2Nzg5MDE=";
+
+    private final User driver = User.builder()
+            .id(5L)
+            .email("driver@example.com")
+            .name("Tài xế")
+            .role(Role.ROLE_EVDRIVER)
+            .build();
+
+    private JwtConfig jwtConfig;
+
+    @BeforeEach
+    void setUp() {
+        jwtConfig = newJwtConfig(60_000);
+    }
+
+    @Test
+    void generatedTokenCarriesSubjectRolesAndPrincipalClaims() {
+        Claims claims = jwtConfig.extractAllClaims(jwtConfig.generateToken(driver));
+
+        assertEquals("driver@example.com", claims.getSubject());
+        assertEquals(List.of("ROLE_EVDRIVER"), claims.get("roles", List.class));
+        assertEquals(5L, claims.get(JwtConfig.CLAIM_USER_ID, Long.class));
+        assertEquals("Tài xế", claims.get(JwtConfig.CLAIM_NAME, String.class));
+    }
+
+    @Test
+    void parsedClaimsValidateAgainstMatchingUserOnly() {
+        String token = jwtConfig.generateToken(driver);
+        Claims claims = jwtConfig.extractAllClaims(token);
+        User other = User.builder().id(6L).email("other@example.com").role(Role.ROLE_EVDRIVER).build();
+
+        assertTrue(jwtConfig.isTokenValid(claims, driver));
+        assertFalse(jwtConfig.isTokenValid(claims, other));
+        assertTrue(jwtConfig.isTokenValid(token, driver));
+    }
+
+    @Test
+    void cachedParserStillRejectsTamperedSignature() {
+        String token = jwtConfig.generateToken(driver);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtConfig.extractAllClaims(tampered));
+    }
+
+    @Test
+    void cachedParserStillRejectsExpiredToken() {
+        String expired = newJwtConfig(-1_000).generateToken(driver);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtConfig.extractAllClaims(expired));
+    }
+
+    private static JwtConfig newJwtConfig(long expirationMillis) {
+        JwtConfig config = new JwtConfig();
+        ReflectionTestUtils.setField(config, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(config, "EXPIRATION_TIME", expirationMillis);
+        config.init();
+        return config;
+    }
+}
@@ -0,0 +1,113 @@
+package project.code.services;
+
+import org.junit.jupiter.api.Test;
+import project.code.dto.booking.TimeSlotDto;
+import project.code.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BookingAvailabilityIndexTest {
+
+    private static final Long POINT = 1L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private final BookingAvailabilityIndex index = new BookingAvailabilityIndex(mock(BookingRepository.class));
+
+    private static LocalDateTime at(int hour) {
+        return T0.withHour(hour);
+    }
+
+    @Test
+    void touchingSlotsDoNotOverlap() {
+        index.add(POINT, 10L, at(9), at(10));
+
+        assertFalse(index.overlaps(POINT, at(10), at(11)));
+        assertFalse(index.overlaps(POINT, at(8), at(9)));
+        assertTrue(index.overlaps(POINT, at(9).plusMinutes(30), at(11)));
+        assertFalse(index.overlaps(2L, at(9), at(10)));
+    }
+
+    @Test
+    void longEarlierBookingIsFoundBehindShorterOnes() {
+        index.add(POINT, 10L, at(8), at(18));
+        index.add(POINT, 11L, at(12), at(13));
+        index.add(POINT, 12L, at(14), at(15));
+
+        assertTrue(index.overlaps(POINT, at(16), at(17)));
+    }
+
+    @Test
+    void removedBookingFreesItsSlot() {
+        index.add(POINT, 10L, at(9), at(10));
+        index.remove(POINT, 10L);
+
+        assertFalse(index.overlaps(POINT, at(9), at(10)));
+    }
+
+    @Test
+    void rescheduledBookingReplacesItsOldSlot() {
+        index.add(POINT, 10L, at(9), at(10));
+        index.add(POINT, 10L, at(14), at(15));
+
+        assertFalse(index.overlaps(POINT, at(9), at(10)));
+        assertTrue(index.overlaps(POINT, at(14), at(15)));
+    }
+
+    @Test
+    void freeSlotsSkipBusyIntervalsAndShortGaps() {
+        index.add(POINT, 10L, at(9), at(10));
+        index.add(POINT, 11L, at(10).plusMinutes(15), at(12));
+
+        List<TimeSlotDto> free = index.freeSlots(POINT, at(8), at(14), Duration.ofMinutes(30));
+
+        assertEquals(List.of(new TimeSlotDto(at(8), at(9)), new TimeSlotDto(at(12), at(14))), free);
+    }
+
+    @Test
+    void concurrentAddsAndRemovesLeaveConsistentSchedule() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    long id = (long) thread * perThread + i;
+                    LocalDateTime slotStart = T0.plusHours(id);
+                    index.add(POINT, id, slotStart, slotStart.plusHours(1));
+                    // Các booking có id lẻ bị hủy ngay
+                    if (id % 2 == 1) {
+                        index.remove(POINT, id);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        long total = (long) threads * perThread;
+        List<TimeSlotDto> free = index.freeSlots(POINT, T0, T0.plusHours(total), Duration.ofMinutes(1));
+        assertEquals(total / 2, free.size());
+        for (long id = 0; id < total; id++) {
+            assertEquals(id % 2 == 0, index.overlaps(POINT, T0.plusHours(id), T0.plusHours(id + 1)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.code.model.Booking;
+import project.code.model.ChargingPoint;
+import project.code.model.enums.BookingStatus;
+import project.code.repository.BookingRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingExpiryServiceTest {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 60;
+
+    private static final long POINT_ID = 7L;
+
+    private BookingRepository bookingRepository;
+    private BookingAvailabilityIndex availabilityIndex;
+    private BookingExpiryService expiryService;
+    private long baseTick;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        availabilityIndex = new BookingAvailabilityIndex(bookingRepository);
+        expiryService = new BookingExpiryService(bookingRepository, availabilityIndex,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                120, 15, TICK_MILLIS, WHEEL_SIZE, 200);
+        // Wheel lấy tick hiện tại trong constructor; dùng offset vài tick để không phụ thuộc ranh giới giây
+        baseTick = System.currentTimeMillis() / TICK_MILLIS + 2;
+    }
+
+    @Test
+    void bookingFiresOnceWhenItsTickIsReached() {
+        expiryService.schedule(1L, atTick(baseTick + 10));
+
+        assertEquals(List.of(), expiryService.advance(baseTick + 9));
+        assertEquals(List.of(1L), expiryService.advance(baseTick + 10));
+        assertEquals(List.of(), expiryService.advance(baseTick + 11));
+    }
+
+    @Test
+    void unscheduledBookingNeverFires() {
+        expiryService.schedule(1L, atTick(baseTick + 5));
+        expiryService.unschedule(1L);
+
+        assertEquals(List.of(), expiryService.advance(baseTick + 20));
+    }
+
+    @Test
+    void rescheduledBookingFiresOnlyAtNewDeadline() {
+        expiryService.schedule(1L, atTick(baseTick + 5));
+        expiryService.schedule(1L, atTick(baseTick + 15));
+
+        assertEquals(List.of(), expiryService.advance(baseTick + 10));
+        assertEquals(List.of(1L), expiryService.advance(baseTick + 15));
+    }
+
+    @Test
+    void overdueBookingFiresOnNextTick() {
+        expiryService.advance(baseTick);
+        expiryService.schedule(1L, atTick(baseTick - 30));
+
+        assertEquals(List.of(1L), expiryService.advance(baseTick + 1));
+    }
+
+    @Test
+    void deadlineBeyondOneRotationIsLeftForRefill() {
+        expiryService.schedule(1L, atTick(baseTick + WHEEL_SIZE + 10));
+
+        for (long t = baseTick; t <= baseTick + WHEEL_SIZE + 10; t++) {
+            assertEquals(List.of(), expiryService.advance(t));
+        }
+    }
+
+    @Test
+    void longPauseStillDrainsEveryDueBooking() {
+        expiryService.schedule(1L, atTick(baseTick + 3));
+        expiryService.schedule(2L, atTick(baseTick + 40));
+
+        List<Long> due = expiryService.advance(baseTick + 10 * WHEEL_SIZE);
+
+        assertEquals(2, due.size());
+        assertTrue(due.containsAll(List.of(1L, 2L)));
+    }
+
+    @Test
+    void confirmedNoShowIsReleasedAtGraceDeadline() {
+        LocalDateTime start = LocalDateTime.now().minusMinutes(20);
+        Booking booking = confirmed(1L, start, start.plusHours(2));
+        dueBookings(List.of(booking), List.of());
+
+        expiryService.expireBatch(List.of(1L));
+
+        assertEquals(BookingStatus.NO_SHOW, booking.getStatus());
+        assertFalse(availabilityIndex.overlaps(POINT_ID, start, start.plusHours(2)));
+    }
+
+    @Test
+    void showedUpBookingKeepsItsSlotUntilEndTime() {
+        LocalDateTime start = LocalDateTime.now().minusMinutes(20);
+        LocalDateTime end = start.plusHours(2);
+        Booking booking = confirmed(1L, start, end);
+        dueBookings(List.of(booking), List.of(1L));
+
+        expiryService.expireBatch(List.of(1L));
+
+        assertEquals(BookingStatus.CONFIRMED, booking.getStatus());
+        assertEquals(end, booking.getExpiresAt());
+        // Phần còn lại của khung giờ vẫn bị chiếm, người khác không đặt chồng được
+        assertTrue(availabilityIndex.overlaps(POINT_ID, LocalDateTime.now().plusMinutes(30), end));
+    }
+
+    @Test
+    void showedUpBookingIsCompletedOnceEndTimePasses() {
+        LocalDateTime start = LocalDateTime.now().minusHours(2);
+        LocalDateTime end = LocalDateTime.now().minusMinutes(1);
+        Booking booking = confirmed(1L, start, end);
+        booking.setExpiresAt(end);
+        dueBookings(List.of(booking), List.of(1L));
+
+        expiryService.expireBatch(List.of(1L));
+
+        assertEquals(BookingStatus.COMPLETED, booking.getStatus());
+        assertFalse(availabilityIndex.overlaps(POINT_ID, start, end));
+    }
+
+    private Booking confirmed(Long id, LocalDateTime start, LocalDateTime end) {
+        availabilityIndex.add(POINT_ID, id, start, end);
+        return Booking.builder()
+                .id(id)
+                .chargingPoint(ChargingPoint.builder().chargingPointId(POINT_ID).build())
+                .startTime(start)
+                .endTime(end)
+                .status(BookingStatus.CONFIRMED)
+                .expiresAt(expiryService.noShowDeadline(start))
+                .build();
+    }
+
+    private void dueBookings(List<Booking> bookings, List<Long> showedUpIds) {
+        when(bookingRepository.lockExpired(anyCollection(), anyCollection(), any())).thenReturn(bookings);
+        when(bookingRepository.findIdsWithSessionDuringSlot(anyCollection())).thenReturn(showedUpIds);
+    }
+
+    private static LocalDateTime atTick(long tick) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(tick * TICK_MILLIS), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,127 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.code.dto.booking.CreateBookingRequest;
+import project.code.model.Booking;
+import project.code.model.ChargingPoint;
+import project.code.model.ChargingStation;
+import project.code.model.EVDriver;
+import project.code.model.User;
+import project.code.repository.BookingRepository;
+import project.code.repository.CSStaffRepository;
+import project.code.repository.ChargingPointRepository;
+import project.code.repository.EVDriverRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BookingServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private final AtomicLong ids = new AtomicLong();
+    private BookingRepository bookingRepository;
+    private BookingService bookingService;
+    private final User user = new User();
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        ChargingPointRepository pointRepository = mock(ChargingPointRepository.class);
+        EVDriverRepository driverRepository = mock(EVDriverRepository.class);
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(bookingRepository);
+
+        ChargingStation station = ChargingStation.builder().stationId(1L).name("Trạm 1").build();
+        when(pointRepository.findById(anyLong())).thenAnswer(inv -> Optional.of(ChargingPoint.builder()
+                .chargingPointId(inv.getArgument(0))
+                .station(station)
+                .build()));
+        when(driverRepository.findByUserAccount(any())).thenReturn(Optional.of(EVDriver.builder().id(1L).build()));
+        // Insert chậm để mở rộng khoảng giữa kiểm tra trùng lịch và lúc booking vào index
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> {
+            Thread.sleep(5);
+            Booking booking = inv.getArgument(0);
+            booking.setId(ids.incrementAndGet());
+            return booking;
+        });
+
+        bookingService = new BookingService(bookingRepository, pointRepository, driverRepository,
+                mock(CSStaffRepository.class), index, mock(BookingExpiryService.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private List<Throwable> runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (Callable<Object> task : tasks) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Object> f : futures) {
+            try {
+                f.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        pool.shutdown();
+        return failures;
+    }
+
+    @Test
+    void onlyOneOfManyOverlappingBookingsOnSamePointSucceeds() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int offset = i;
+            tasks.add(() -> bookingService.createBooking(user, new CreateBookingRequest(
+                    7L, start.plusMinutes(offset), start.plusMinutes(offset + 60))));
+        }
+
+        List<Throwable> failures = runConcurrently(tasks);
+
+        assertEquals(THREADS - 1, failures.size());
+        failures.forEach(e -> assertInstanceOf(IllegalStateException.class, e));
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+    }
+
+    @Test
+    void bookingsOnDifferentPointsDoNotBlockEachOther() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long pointId = 100L + i;
+            tasks.add(() -> bookingService.createBooking(user, new CreateBookingRequest(
+                    pointId, start, start.plusHours(1))));
+        }
+
+        List<Throwable> failures = runConcurrently(tasks);
+
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures: " + failures);
+        verify(bookingRepository, times(THREADS)).save(any(Booking.class));
+    }
+}
@@ -0,0 +1,46 @@
+package project.code.services;
+
+import org.junit.jupiter.api.Test;
+import project.code.dto.chargingpoint.ChargingPointDto;
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTest {
+
+    private final CatalogCache catalogCache = new CatalogCache(100, 300);
+    private final ChargingPointDto point = new ChargingPointDto(3L, 1L, ConnectorType.values()[0], 50.0,
+            ChargingPointStatus.AVAILABLE);
+
+    @Test
+    void statusChangedAfterLoadOverridesCachedStatus() {
+        long loadedAt = System.nanoTime();
+        catalogCache.pointStatusChangedAfterCommit(3L, ChargingPointStatus.CHARGING);
+
+        ChargingPointDto live = catalogCache.withLiveStatus(point, loadedAt);
+
+        assertEquals(ChargingPointStatus.CHARGING, live.status());
+        assertEquals(point.power(), live.power());
+    }
+
+    @Test
+    void statusChangedBeforeLoadIsAlreadyInTheCachedCopy() {
+        catalogCache.pointStatusChangedAfterCommit(3L, ChargingPointStatus.CHARGING);
+        long loadedAt = System.nanoTime();
+        ChargingPointDto offline = new ChargingPointDto(3L, 1L, point.type(), point.power(), ChargingPointStatus.OFFLINE);
+
+        assertSame(offline, catalogCache.withLiveStatus(offline, loadedAt));
+    }
+
+    @Test
+    void sessionStatusChangeDoesNotInvalidateCatalog() {
+        catalogCache.pointList().put(CatalogCache.ALL, CatalogCache.Snapshot.of(List.of(point)));
+
+        catalogCache.pointStatusChangedAfterCommit(3L, ChargingPointStatus.CHARGING);
+
+        assertNotNull(catalogCache.pointList().getIfPresent(CatalogCache.ALL));
+    }
+}
@@ -0,0 +1,183 @@
+package project.code.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.code.dto.session.ChargeSessionDto;
+import project.code.dto.session.CreateChargeSessionRequest;
+import project.code.model.ChargeSession;
+import project.code.model.ChargingPoint;
+import project.code.model.ChargingStation;
+import project.code.model.EVDriver;
+import project.code.model.User;
+import project.code.model.Vehicle;
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
+import project.code.model.enums.Role;
+import project.code.repository.ChargeSessionRepository;
+import project.code.repository.ChargingPointRepository;
+import project.code.repository.ChargingStationRepository;
+import project.code.repository.EVDriverRepository;
+import project.code.repository.UserRepository;
+import project.code.repository.VehicleRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Nhiều tài xế cùng bấm bắt đầu sạc trên vài điểm sạc: UPDATE có điều kiện của compareAndSetStatus chạy trên
+ * database thật (H2 chế độ MySQL), mỗi request một transaction riêng như khi gọi qua controller.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(ChargeSessionService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChargeSessionConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int POINTS = 8;
+    private static final int STARTS_PER_POINT = 50;
+
+    @MockBean
+    private InvoiceOutboxService invoiceOutboxService;
+    @MockBean
+    private StationHourlyStatsService hourlyStatsService;
+    @MockBean
+    private ChargeSessionTelemetryService telemetryService;
+    @MockBean
+    private WalletService walletService;
+    @MockBean
+    private StationAvailabilityCounters availabilityCounters;
+    @MockBean
+    private CatalogCache catalogCache;
+    @MockBean
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChargeSessionService sessionService;
+    @Autowired
+    private ChargeSessionRepository sessionRepository;
+    @Autowired
+    private ChargingPointRepository pointRepository;
+    @Autowired
+    private ChargingStationRepository stationRepository;
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    @Autowired
+    private EVDriverRepository driverRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> pointIds = new ArrayList<>();
+    private final List<Vehicle> vehicles = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ChargingStation station = stationRepository.save(ChargingStation.builder()
+                .name("Trạm 1")
+                .location("Hà Nội")
+                .status(ChargingStation.StationStatus.AVAILABLE)
+                .build());
+        for (int i = 0; i < POINTS; i++) {
+            pointIds.add(pointRepository.save(ChargingPoint.builder()
+                    .station(station)
+                    .type(ConnectorType.CCS)
+                    .power(60.0)
+                    .status(ChargingPointStatus.AVAILABLE)
+                    .build()).getChargingPointId());
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < POINTS * STARTS_PER_POINT; i++) {
+            users.add(User.builder()
+                    .name("Tài xế " + i)
+                    .email("driver-" + i + "-" + System.nanoTime() + "@example.com")
+                    .password("x")
+                    .role(Role.ROLE_EVDRIVER)
+                    .build());
+        }
+        List<EVDriver> drivers = driverRepository.saveAll(userRepository.saveAll(users).stream()
+                .map(user -> EVDriver.builder().userAccount(user).build())
+                .toList());
+        for (int i = 0; i < drivers.size(); i++) {
+            vehicles.add(Vehicle.builder()
+                    .vehicleId("30A-" + i)
+                    .brand("VinFast")
+                    .model("VF8")
+                    .batteryCapacity(82.0)
+                    .connectorType(ConnectorType.CCS)
+                    .driver(drivers.get(i))
+                    .build());
+        }
+        vehicles.replaceAll(vehicleRepository::save);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+        vehicleRepository.deleteAll();
+        driverRepository.deleteAll();
+        userRepository.deleteAll();
+        pointRepository.deleteAll();
+        stationRepository.deleteAll();
+    }
+
+    @Test
+    void eachPointIsClaimedByExactlyOneOfManyConcurrentStarts() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ChargeSessionDto>> futures = new ArrayList<>();
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle vehicle = vehicles.get(i);
+            CreateChargeSessionRequest request = new CreateChargeSessionRequest(
+                    vehicle.getDriver().getId(), vehicle.getId(), pointIds.get(i % POINTS));
+            futures.add(pool.submit(() -> {
+                start.await();
+                return sessionService.startSession(request);
+            }));
+        }
+        start.countDown();
+
+        int started = 0;
+        int rejected = 0;
+        for (Future<ChargeSessionDto> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                started++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                rejected++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(POINTS, started);
+        assertEquals(POINTS * (STARTS_PER_POINT - 1), rejected);
+        Map<Long, Long> sessionsPerPoint = sessionRepository.findAll().stream()
+                .collect(Collectors.groupingBy(s -> s.getChargingPoint().getChargingPointId(), Collectors.counting()));
+        assertEquals(POINTS, sessionsPerPoint.size());
+        assertTrue(sessionsPerPoint.values().stream().allMatch(count -> count == 1));
+        for (Long pointId : pointIds) {
+            assertEquals(ChargingPointStatus.CHARGING, pointRepository.findById(pointId).orElseThrow().getStatus());
+        }
+    }
+}
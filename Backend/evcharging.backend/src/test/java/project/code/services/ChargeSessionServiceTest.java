@@ -0,0 +1,161 @@
+package project.code.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import project.code.dto.session.CreateChargeSessionRequest;
+import project.code.dto.session.StopChargeSessionRequest;
+import project.code.model.ChargeSession;
+import project.code.model.ChargingPoint;
+import project.code.model.ChargingStation;
+import project.code.model.EVDriver;
+import project.code.model.Vehicle;
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.SessionStatus;
+import project.code.repository.ChargeSessionRepository;
+import project.code.repository.ChargingPointRepository;
+import project.code.repository.ChargingStationRepository;
+import project.code.repository.EVDriverRepository;
+import project.code.repository.VehicleRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChargeSessionServiceTest {
+
+    private static final int THREADS = 16;
+    private static final long POINT_ID = 3L;
+
+    // Trạng thái điểm sạc như trong DB; compareAndSetStatus giả lập UPDATE ... WHERE status = ? trên một dòng
+    private final AtomicReference<ChargingPointStatus> pointStatus = new AtomicReference<>(ChargingPointStatus.AVAILABLE);
+    private final AtomicLong ids = new AtomicLong();
+
+    private ChargeSessionRepository sessionRepository;
+    private ChargingPointRepository pointRepository;
+    private WalletService walletService;
+    private ChargeSessionService sessionService;
+    private ChargingPoint point;
+
+    @BeforeEach
+    void setUp() {
+        sessionRepository = mock(ChargeSessionRepository.class);
+        pointRepository = mock(ChargingPointRepository.class);
+        EVDriverRepository driverRepository = mock(EVDriverRepository.class);
+        VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+        walletService = mock(WalletService.class);
+
+        ChargingStation station = ChargingStation.builder().stationId(1L).name("Trạm 1").build();
+        point = ChargingPoint.builder().chargingPointId(POINT_ID).station(station).build();
+        when(driverRepository.findById(anyLong())).thenAnswer(inv -> Optional.of(EVDriver.builder().id(inv.getArgument(0)).build()));
+        when(vehicleRepository.findById(anyLong())).thenAnswer(inv -> Optional.of(Vehicle.builder().id(inv.getArgument(0)).build()));
+        when(pointRepository.findById(POINT_ID)).thenReturn(Optional.of(point));
+        when(pointRepository.compareAndSetStatus(eq(POINT_ID), any(), any())).thenAnswer(inv ->
+                pointStatus.compareAndSet(inv.getArgument(1), inv.getArgument(2)) ? 1 : 0);
+        when(sessionRepository.save(any(ChargeSession.class))).thenAnswer(inv -> {
+            ChargeSession session = inv.getArgument(0);
+            if (session.getSessionId() == null) {
+                session.setSessionId(ids.incrementAndGet());
+            }
+            return session;
+        });
+        when(walletService.apply(any(), any(), anyDouble(), any(), any()))
+                .thenReturn(new WalletService.WalletEntryResult(100.0, 90.0, false));
+
+        sessionService = new ChargeSessionService(sessionRepository, driverRepository, vehicleRepository,
+                pointRepository, mock(ChargingStationRepository.class), mock(InvoiceOutboxService.class),
+                mock(StationHourlyStatsService.class), mock(ChargeSessionTelemetryService.class),
+                mock(ApplicationEventPublisher.class), walletService, mock(StationAvailabilityCounters.class),
+                mock(CatalogCache.class), new ObjectMapper());
+    }
+
+    @Test
+    void onlyOneOfManyConcurrentStartsClaimsThePoint() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (long driverId = 1; driverId <= THREADS; driverId++) {
+            CreateChargeSessionRequest request = new CreateChargeSessionRequest(driverId, driverId, POINT_ID);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return sessionService.startSession(request);
+            }));
+        }
+        start.countDown();
+
+        int started = 0;
+        int rejected = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                started++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                rejected++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, started);
+        assertEquals(THREADS - 1, rejected);
+        assertEquals(ChargingPointStatus.CHARGING, pointStatus.get());
+        verify(sessionRepository, times(1)).save(any(ChargeSession.class));
+    }
+
+    @Test
+    void stopSessionDoesNotOverrideStatusSetByStaff() {
+        pointStatus.set(ChargingPointStatus.CHARGING);
+        ChargeSession session = activeSession();
+        when(sessionRepository.findById(session.getSessionId())).thenReturn(Optional.of(session));
+        // Staff chuyển điểm sạc sang OFFLINE trong lúc phiên đang chạy
+        pointStatus.set(ChargingPointStatus.OFFLINE);
+
+        sessionService.stopSession(session.getSessionId(), new StopChargeSessionRequest(10.0));
+
+        assertEquals(ChargingPointStatus.OFFLINE, pointStatus.get());
+        assertEquals(SessionStatus.COMPLETED, session.getStatus());
+    }
+
+    @Test
+    void stopSessionReleasesChargingPointAndChargesWalletOnce() {
+        pointStatus.set(ChargingPointStatus.CHARGING);
+        ChargeSession session = activeSession();
+        when(sessionRepository.findById(session.getSessionId())).thenReturn(Optional.of(session));
+
+        sessionService.stopSession(session.getSessionId(), new StopChargeSessionRequest(10.0));
+
+        assertEquals(ChargingPointStatus.AVAILABLE, pointStatus.get());
+        verify(walletService).apply(any(), any(), eq(-ChargeSessionService.calculateCost(10.0)),
+                eq("CHARGE_SESSION:" + session.getSessionId()), eq(session.getSessionId()));
+        assertThrows(IllegalStateException.class, () ->
+                sessionService.stopSession(session.getSessionId(), new StopChargeSessionRequest(10.0)));
+    }
+
+    private ChargeSession activeSession() {
+        return ChargeSession.builder()
+                .sessionId(42L)
+                .driver(EVDriver.builder().id(1L).build())
+                .vehicle(Vehicle.builder().id(1L).build())
+                .chargingPoint(point)
+                .station(point.getStation())
+                .startTime(LocalDateTime.now().minusMinutes(30))
+                .status(SessionStatus.ACTIVE)
+                .energyUsed(0.0)
+                .cost(0.0)
+                .build();
+    }
+}
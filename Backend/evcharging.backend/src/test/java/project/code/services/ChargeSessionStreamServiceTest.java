@@ -0,0 +1,57 @@
+package project.code.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import project.code.dto.session.LiveSessionDto;
+import project.code.model.enums.SessionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChargeSessionStreamServiceTest {
+
+    private static final Long SESSION_ID = 42L;
+
+    private ChargeSessionStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        streamService = new ChargeSessionStreamService(60_000, 1, 10, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void sessionStoppedBeforeSubscriberRegisteredClosesStream() throws Exception {
+        // initial đọc lúc còn ACTIVE; sự kiện COMPLETED đã phát trước khi subscriber kịp đăng ký
+        streamService.onSessionUpdate(live(SessionStatus.COMPLETED));
+
+        streamService.subscribe(SESSION_ID, live(SessionStatus.ACTIVE), () -> Optional.of(live(SessionStatus.COMPLETED)));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (streamService.subscriberCount(SESSION_ID) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, streamService.subscriberCount(SESSION_ID));
+    }
+
+    @Test
+    void activeSessionKeepsSubscriberUntilCompletedUpdate() throws Exception {
+        streamService.subscribe(SESSION_ID, live(SessionStatus.ACTIVE), () -> Optional.of(live(SessionStatus.ACTIVE)));
+        assertEquals(1, streamService.subscriberCount(SESSION_ID));
+
+        streamService.onSessionUpdate(live(SessionStatus.COMPLETED));
+
+        assertEquals(0, streamService.subscriberCount(SESSION_ID));
+    }
+
+    private static LiveSessionDto live(SessionStatus status) {
+        return new LiveSessionDto(SESSION_ID, status, 5.0, 17_500.0, 50.0, 60.0, 600, 10, LocalDateTime.now());
+    }
+}
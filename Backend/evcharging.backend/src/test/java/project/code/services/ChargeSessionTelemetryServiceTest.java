@@ -0,0 +1,125 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import project.code.dto.session.LiveSessionDto;
+import project.code.dto.session.TelemetrySampleRequest;
+import project.code.model.ChargeSession;
+import project.code.model.enums.SessionStatus;
+import project.code.repository.ChargeSessionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ChargeSessionTelemetryServiceTest {
+
+    private static final Long SESSION_ID = 7L;
+
+    private ChargeSessionRepository repository;
+    private JdbcTemplate jdbcTemplate;
+    private ChargeSessionTelemetryService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChargeSessionRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new ChargeSessionTelemetryService(repository, jdbcTemplate, mock(ApplicationEventPublisher.class), 30);
+
+        ChargeSession active = ChargeSession.builder()
+                .sessionId(SESSION_ID)
+                .status(SessionStatus.ACTIVE)
+                .startTime(LocalDateTime.now().minusMinutes(10))
+                .energyUsed(0)
+                .build();
+        when(repository.findById(SESSION_ID)).thenReturn(Optional.of(active));
+    }
+
+    private static TelemetrySampleRequest sample(double energyKwh) {
+        return new TelemetrySampleRequest(energyKwh, 7.0, 50.0);
+    }
+
+    @Test
+    void lateSampleDoesNotMoveMeterBackwards() {
+        service.recordSample(SESSION_ID, sample(5.0));
+        LiveSessionDto live = service.recordSample(SESSION_ID, sample(4.0));
+
+        assertEquals(5.0, live.energyUsed());
+        assertEquals(2, live.sampleCount());
+    }
+
+    @Test
+    void concurrentSamplesAreAllCounted() throws Exception {
+        int threads = 8;
+        int samplesPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < samplesPerThread; i++) {
+                    service.recordSample(SESSION_ID, sample(offset * samplesPerThread + i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        LiveSessionDto live = service.getLive(SESSION_ID).orElseThrow();
+        assertEquals((long) threads * samplesPerThread, live.sampleCount());
+        assertEquals(threads * samplesPerThread - 1.0, live.energyUsed());
+    }
+
+    @Test
+    void sampleAfterCompletionIsRejectedEvenIfDatabaseStillShowsActive() {
+        service.recordSample(SESSION_ID, sample(3.0));
+        // Không có transaction nên bộ đếm được bỏ ngay
+        service.completeAfterCommit(SESSION_ID);
+
+        // repository vẫn trả về ACTIVE, như khi đọc trước lúc stopSession commit
+        assertThrows(IllegalStateException.class, () -> service.recordSample(SESSION_ID, sample(4.0)));
+        assertTrue(service.getLive(SESSION_ID).isEmpty());
+    }
+
+    @Test
+    void flushDropsSessionThatIsNoLongerActive() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+        service.recordSample(SESSION_ID, sample(3.0));
+
+        service.flush();
+
+        assertTrue(service.getLive(SESSION_ID).isEmpty());
+        assertThrows(IllegalStateException.class, () -> service.recordSample(SESSION_ID, sample(4.0)));
+    }
+
+    @Test
+    void flushWritesOnlySessionsWithNewSamples() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        service.recordSample(SESSION_ID, sample(3.0));
+
+        service.flush();
+        service.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertTrue(service.getLive(SESSION_ID).isPresent());
+    }
+}
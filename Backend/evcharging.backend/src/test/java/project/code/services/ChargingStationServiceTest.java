@@ -0,0 +1,62 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import project.code.dto.station.UpdateStationRequest;
+import project.code.model.ChargingStation;
+import project.code.model.ChargingStation.StationStatus;
+import project.code.repository.ChargingStationRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ChargingStationServiceTest {
+
+    private static final double LAT = 21.0285;
+    private static final double LON = 105.8542;
+
+    private StationGeoIndex geoIndex;
+    private ChargingStation station;
+    private ChargingStationService service;
+
+    @BeforeEach
+    void setUp() {
+        ChargingStationRepository repository = mock(ChargingStationRepository.class);
+        geoIndex = new StationGeoIndex(repository, 0.05);
+        station = ChargingStation.builder()
+                .stationId(1L).name("Trạm 1").location("Hà Nội")
+                .latitude(LAT).longitude(LON).status(StationStatus.AVAILABLE)
+                .build();
+        geoIndex.put(1L, LAT, LON, StationStatus.AVAILABLE);
+        when(repository.findById(1L)).thenReturn(Optional.of(station));
+        when(repository.save(any(ChargingStation.class))).thenAnswer(inv -> inv.getArgument(0));
+        service = new ChargingStationService(repository, mock(StationAvailabilityCounters.class), geoIndex,
+                mock(CatalogCache.class));
+    }
+
+    @Test
+    void updateWithoutCoordinatesKeepsLocation() {
+        service.update(1L, new UpdateStationRequest("Trạm 1", "Hà Nội", null, null, StationStatus.AVAILABLE, null));
+
+        assertEquals(LAT, station.getLatitude());
+        assertEquals(1, geoIndex.withinRadius(LAT, LON, 1.0).size());
+    }
+
+    @Test
+    void clearLocationRemovesCoordinatesAndGeoIndexEntry() {
+        service.update(1L, new UpdateStationRequest("Trạm 1", "Hà Nội", null, null, StationStatus.AVAILABLE, true));
+
+        assertNull(station.getLatitude());
+        assertNull(station.getLongitude());
+        assertTrue(geoIndex.withinRadius(LAT, LON, 1.0).isEmpty());
+    }
+
+    @Test
+    void clearLocationWithCoordinatesIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.update(1L,
+                new UpdateStationRequest("Trạm 1", "Hà Nội", LAT, LON, StationStatus.AVAILABLE, true)));
+    }
+}
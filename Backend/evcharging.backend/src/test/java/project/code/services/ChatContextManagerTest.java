@@ -0,0 +1,101 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import project.code.model.ChatHistory;
+import project.code.model.ChatSummary;
+import project.code.repository.ChatHistoryRepository;
+import project.code.repository.ChatSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatContextManagerTest {
+
+    private static final Long DRIVER_ID = 1L;
+    private static final int RECENT_TURNS = 4;
+    private static final int FOLD_BATCH_SIZE = 20;
+
+    private ChatHistoryRepository historyRepository;
+    private ChatSummaryRepository summaryRepository;
+    private final List<ChatHistory> history = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        historyRepository = mock(ChatHistoryRepository.class);
+        summaryRepository = mock(ChatSummaryRepository.class);
+        // Giả lập truy vấn: id > afterId, mới trước, giới hạn theo page size
+        when(historyRepository.findRecentByDriverIdAfter(eq(DRIVER_ID), anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long afterId = inv.getArgument(1);
+            Pageable page = inv.getArgument(2);
+            return history.stream()
+                    .filter(h -> h.getId() > afterId)
+                    .sorted((a, b) -> Long.compare(b.getId(), a.getId()))
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+    }
+
+    @Test
+    void turnsWaitingForNextFoldAreStillSentVerbatim() {
+        // 10 lượt đã tóm tắt, 15 lượt sau đó: ngoài cửa sổ 4 lượt nhưng chưa đủ một lô 20 để gộp
+        addTurns(25);
+        summarizedUpTo(10L);
+
+        ChatContextManager.Conversation conversation = manager(100_000).build(DRIVER_ID, "Câu hỏi mới");
+
+        assertEquals("Tóm tắt", conversation.summary());
+        List<Map<String, String>> messages = conversation.messages();
+        assertEquals(15 * 2 + 1, messages.size());
+        assertEquals("Hỏi 11", messages.get(0).get("content"));
+        assertEquals("Đáp 25", messages.get(messages.size() - 2).get("content"));
+        assertEquals("Câu hỏi mới", messages.get(messages.size() - 1).get("content"));
+    }
+
+    @Test
+    void tokenBudgetKeepsNewestTurnsFirst() {
+        addTurns(25);
+        summarizedUpTo(10L);
+        // Mỗi lượt khoảng 4 token (ước lượng 3 ký tự/token): sau tóm tắt và câu hỏi chỉ còn chỗ cho 4 lượt mới nhất
+        ChatContextManager.Conversation conversation = manager(20).build(DRIVER_ID, "Hỏi");
+
+        List<Map<String, String>> messages = conversation.messages();
+        assertEquals(4 * 2 + 1, messages.size());
+        assertEquals("Đáp 25", messages.get(messages.size() - 2).get("content"));
+    }
+
+    @Test
+    void withoutSummaryEveryTurnIsCandidate() {
+        addTurns(3);
+        when(summaryRepository.findById(DRIVER_ID)).thenReturn(Optional.empty());
+
+        ChatContextManager.Conversation conversation = manager(100_000).build(DRIVER_ID, "Hỏi");
+
+        assertNull(conversation.summary());
+        assertEquals(3 * 2 + 1, conversation.messages().size());
+    }
+
+    private ChatContextManager manager(int tokenBudget) {
+        return new ChatContextManager(historyRepository, summaryRepository, mock(GeminiClient.class),
+                tokenBudget, RECENT_TURNS, 400, FOLD_BATCH_SIZE, 3.0, 1, 10);
+    }
+
+    private void summarizedUpTo(Long lastHistoryId) {
+        when(summaryRepository.findById(DRIVER_ID)).thenReturn(Optional.of(ChatSummary.builder()
+                .driverId(DRIVER_ID).summary("Tóm tắt").lastHistoryId(lastHistoryId).updatedAt(LocalDateTime.now()).build()));
+    }
+
+    private void addTurns(int count) {
+        for (long id = 1; id <= count; id++) {
+            history.add(ChatHistory.builder().id(id).userMessage("Hỏi " + id).botResponse("Đáp " + id).build());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package project.code.services;
+
+import org.junit.jupiter.api.Test;
+import project.code.model.EVDriver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatResponseCacheTest {
+
+    private final ChatResponseCache cache = new ChatResponseCache(100, 3600, 12, 300);
+
+    private EVDriver driver(long id) {
+        return EVDriver.builder().id(id).walletBalance(50000).build();
+    }
+
+    @Test
+    void generalQuestionIsSharedAcrossDrivers() {
+        ChatResponseCache.Key first = cache.keyFor(driver(1), "Giá sạc nhanh DC là bao nhiêu?");
+        ChatResponseCache.Key second = cache.keyFor(driver(2), "giá sạc   nhanh dc là bao nhiêu");
+
+        assertTrue(first.shared());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void firstPersonQuestionIsScopedToDriver() {
+        ChatResponseCache.Key first = cache.keyFor(driver(1), "Tôi còn bao nhiêu tiền trong ví?");
+        ChatResponseCache.Key second = cache.keyFor(driver(2), "Tôi còn bao nhiêu tiền trong ví?");
+
+        assertFalse(first.shared());
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void questionWithoutDiacriticsIsStillRecognisedAsPersonal() {
+        ChatResponseCache.Key key = cache.keyFor(driver(1), "toi con bao nhieu tien");
+
+        assertFalse(key.shared());
+    }
+
+    @Test
+    void shortOrFollowUpQuestionsAreNotCached() {
+        assertNull(cache.keyFor(driver(1), "tại sao?"));
+        assertNull(cache.keyFor(driver(1), "Vậy còn cái kia thì sao?"));
+        assertNull(cache.keyFor(driver(1), "Giải thích thêm về cái đó đi"));
+    }
+
+    @Test
+    void sharedAnswerIsNotServedForDriverScopedKey() {
+        ChatResponseCache.Key shared = cache.keyFor(driver(1), "Cách nạp tiền vào ví điện tử");
+        cache.put(shared, "Vào mục Ví và chọn Nạp tiền.");
+
+        assertEquals("Vào mục Ví và chọn Nạp tiền.", cache.get(cache.keyFor(driver(2), "cách nạp tiền vào ví điện tử")));
+        assertNull(cache.get(cache.keyFor(driver(2), "Cách nạp tiền vào ví của tôi")));
+    }
+}
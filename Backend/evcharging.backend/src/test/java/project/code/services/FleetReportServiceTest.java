@@ -0,0 +1,78 @@
+package project.code.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import project.code.dto.report.FleetReportResultDto;
+import project.code.dto.report.SessionTotalsDto;
+import project.code.model.enums.ReportType;
+import project.code.repository.ChargingStationRepository;
+import project.code.repository.ReportRepository;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FleetReportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 31, 23, 59);
+
+    private ReportRepository reportRepository;
+    private JdbcTemplate jdbcTemplate;
+    private FleetReportService service;
+
+    @BeforeEach
+    void setUp() {
+        StationHourlyStatsService hourlyStatsService = mock(StationHourlyStatsService.class);
+        ChargingStationRepository stationRepository = mock(ChargingStationRepository.class);
+        reportRepository = mock(ReportRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        when(stationRepository.findAllStationIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(hourlyStatsService.sumTotals(anyLong(), any(), any())).thenReturn(new SessionTotalsDto(4L, 40.0, 140_000.0));
+        // Như MySQL với rewriteBatchedStatements: mỗi dòng của batch INSERT trả SUCCESS_NO_INFO
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            int[] counts = new int[((List<?>) inv.getArgument(1)).size()];
+            Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+            return counts;
+        });
+        service = new FleetReportService(hourlyStatsService, stationRepository, reportRepository, jdbcTemplate, 2, 10, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void upsertReportsCreatedAndUpdatedSeparately() {
+        // 3 trạm x 2 loại = 6 dòng; 2 report của kỳ đã có từ lần chạy trước
+        when(reportRepository.countForPeriod(anyCollection(), eq(START), eq(END))).thenReturn(2L, 6L);
+
+        FleetReportResultDto result = service.generateForAllStations(
+                List.of(ReportType.REVENUE, ReportType.USAGE), START, END, false);
+
+        assertEquals(4, result.reportsCreated());
+        assertEquals(2, result.reportsUpdated());
+    }
+
+    @Test
+    void skipExistingNeverCountsUpdates() {
+        when(reportRepository.findStationIdsWithReport(any(), eq(START), eq(END))).thenReturn(List.of(1L));
+        when(reportRepository.countForPeriod(anyCollection(), eq(START), eq(END))).thenReturn(2L, 6L);
+
+        FleetReportResultDto result = service.generateForAllStations(
+                List.of(ReportType.REVENUE, ReportType.USAGE), START, END, true);
+
+        assertEquals(4, result.reportsCreated());
+        assertEquals(0, result.reportsUpdated());
+        verify(jdbcTemplate).batchUpdate(contains("INSERT IGNORE"), argThat((List<Object[]> rows) -> rows.size() == 4));
+    }
+}
@@ -0,0 +1,124 @@
+package project.code.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import project.code.dto.metrics.ChatbotPipelineStatsDto;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chạy GeminiClient.stream với một server SSE giả lập trên máy (thay cho streamGenerateContent):
+ * mỗi đoạn text cách nhau CHUNK_DELAY_MS như khi model đang sinh câu trả lời.
+ */
+class GeminiClientStreamTest {
+
+    private static final String[] CHUNKS = {"Xin ", "chào, ", "trạm ", "gần ", "nhất ", "còn ", "trống."};
+    private static final long CHUNK_DELAY_MS = 150;
+    private static final List<Map<String, Object>> CONTENTS = List.of(
+            Map.of("role", "user", "parts", List.of(Map.of("text", "Trạm nào còn trống?"))));
+
+    private HttpServer server;
+    private GeminiClient client;
+    private volatile int upstreamStatus = 200;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            if (upstreamStatus != 200) {
+                exchange.sendResponseHeaders(upstreamStatus, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String chunk : CHUNKS) {
+                    String data = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + chunk + "\"}]}}]}";
+                    out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    Thread.sleep(CHUNK_DELAY_MS);
+                }
+            } catch (Exception e) {
+                // Client hủy luồng giữa chừng
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new GeminiClient(new ObjectMapper(), "test-key", baseUrl, "mock-model",
+                1000, 5000, 10_000, 4, 0, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void firstChunkArrivesLongBeforeTheFullReply() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        AtomicLong firstChunkAt = new AtomicLong();
+        long startedAt = System.nanoTime();
+
+        String reply = client.stream(CONTENTS, chunk -> {
+            firstChunkAt.compareAndSet(0, System.nanoTime());
+            received.add(chunk);
+        }).get(10, TimeUnit.SECONDS);
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        long firstChunkMillis = TimeUnit.NANOSECONDS.toMillis(firstChunkAt.get() - startedAt);
+
+        assertEquals(String.join("", CHUNKS), reply);
+        assertEquals(List.of(CHUNKS), received);
+        // Chờ cả câu trả lời mất ít nhất (số đoạn - 1) * CHUNK_DELAY_MS; đoạn đầu tiên phải đến dưới một giây
+        assertTrue(totalMillis >= (CHUNKS.length - 1) * CHUNK_DELAY_MS, "total " + totalMillis + " ms");
+        assertTrue(firstChunkMillis < 1000, "first chunk after " + firstChunkMillis + " ms");
+        assertTrue(firstChunkMillis < totalMillis / 2, "first " + firstChunkMillis + " ms, total " + totalMillis + " ms");
+
+        ChatbotPipelineStatsDto stats = client.getStats();
+        assertEquals(1, stats.completed());
+        assertTrue(stats.avgTimeToFirstChunkMillis() > 0 && stats.avgTimeToFirstChunkMillis() < 1000);
+    }
+
+    @Test
+    void clientDisconnectIsCountedAsCancelledNotFailed() {
+        ExecutionException e = assertThrows(ExecutionException.class, () ->
+                client.stream(CONTENTS, chunk -> {
+                    throw new GeminiClient.StreamCancelledException("Client đã ngắt kết nối");
+                }).get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(GeminiClient.StreamCancelledException.class, e.getCause());
+        ChatbotPipelineStatsDto stats = client.getStats();
+        assertEquals(1, stats.cancelled());
+        assertEquals(0, stats.failed());
+        assertEquals(0, stats.inFlightCalls());
+    }
+
+    @Test
+    void upstreamErrorIsCountedAsFailed() {
+        upstreamStatus = 500;
+
+        ExecutionException e = assertThrows(ExecutionException.class, () ->
+                client.stream(CONTENTS, chunk -> { }).get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(ResponseStatusException.class, e.getCause());
+        ChatbotPipelineStatsDto stats = client.getStats();
+        assertEquals(1, stats.failed());
+        assertEquals(0, stats.cancelled());
+    }
+}
@@ -0,0 +1,127 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import project.code.model.InvoiceOutbox;
+import project.code.model.enums.OutboxStatus;
+import project.code.repository.ChargeSessionRepository;
+import project.code.repository.InvoiceOutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvoiceOutboxServiceTest {
+
+    private static final long BASE_BACKOFF_MILLIS = 2000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private InvoiceOutboxRepository outboxRepository;
+    private InvoiceService invoiceService;
+    private ChargeSessionRepository sessionRepository;
+    private InvoiceOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(InvoiceOutboxRepository.class);
+        invoiceService = mock(InvoiceService.class);
+        sessionRepository = mock(ChargeSessionRepository.class);
+        // Mọi phiên trong lô đều còn tồn tại, trừ khi test đặt lại
+        when(sessionRepository.findExistingIds(anyCollection())).thenAnswer(inv -> List.copyOf(inv.getArgument(0)));
+        outboxService = new InvoiceOutboxService(outboxRepository, invoiceService, sessionRepository,
+                mock(PlatformTransactionManager.class), 100, MAX_ATTEMPTS, BASE_BACKOFF_MILLIS);
+    }
+
+    @Test
+    void failedBatchIsRetriedPerSessionAndOnlyTheBrokenOneBacksOff() {
+        InvoiceOutbox ok = entry(1L, 0);
+        InvoiceOutbox broken = entry(2L, 0);
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(ok, broken));
+        when(invoiceService.generateInvoicesForSessions(List.of(1L, 2L))).thenThrow(new IllegalStateException("lô lỗi"));
+        when(invoiceService.generateInvoicesForSessions(List.of(1L))).thenReturn(1);
+        when(invoiceService.generateInvoicesForSessions(List.of(2L))).thenThrow(new IllegalStateException("phiên 2 lỗi"));
+
+        LocalDateTime before = LocalDateTime.now();
+        outboxService.dispatch();
+
+        assertEquals(OutboxStatus.DONE, ok.getStatus());
+        assertNull(ok.getLastError());
+        assertEquals(OutboxStatus.PENDING, broken.getStatus());
+        assertEquals(1, broken.getAttempts());
+        assertEquals("phiên 2 lỗi", broken.getLastError());
+        assertBackoff(before, broken, BASE_BACKOFF_MILLIS);
+        assertEquals(1, outboxService.getStats().invoicesCreated());
+        assertEquals(1, outboxService.getStats().retries());
+        verify(outboxRepository).saveAll(List.of(ok, broken));
+    }
+
+    @Test
+    void backoffDoublesWithEachAttempt() {
+        InvoiceOutbox entry = entry(1L, 1);
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(entry));
+        when(invoiceService.generateInvoicesForSessions(anyCollection())).thenThrow(new IllegalStateException("lỗi"));
+
+        LocalDateTime before = LocalDateTime.now();
+        outboxService.dispatch();
+
+        assertEquals(2, entry.getAttempts());
+        assertEquals(OutboxStatus.PENDING, entry.getStatus());
+        assertBackoff(before, entry, BASE_BACKOFF_MILLIS * 2);
+    }
+
+    @Test
+    void entryGivesUpAfterMaxAttempts() {
+        InvoiceOutbox entry = entry(1L, MAX_ATTEMPTS - 1);
+        LocalDateTime dueAt = entry.getNextAttemptAt();
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(entry));
+        when(invoiceService.generateInvoicesForSessions(anyCollection())).thenThrow(new IllegalStateException("lỗi"));
+
+        outboxService.dispatch();
+
+        assertEquals(OutboxStatus.FAILED, entry.getStatus());
+        assertEquals(MAX_ATTEMPTS, entry.getAttempts());
+        assertEquals(dueAt, entry.getNextAttemptAt());
+        assertEquals(1, outboxService.getStats().permanentFailures());
+    }
+
+    @Test
+    void deletedSessionIsClosedWithReasonInsteadOfSilentlyDone() {
+        InvoiceOutbox deleted = entry(1L, 0);
+        InvoiceOutbox ok = entry(2L, 0);
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(deleted, ok));
+        when(sessionRepository.findExistingIds(anyCollection())).thenReturn(List.of(2L));
+        when(invoiceService.generateInvoicesForSessions(List.of(2L))).thenReturn(1);
+
+        outboxService.dispatch();
+
+        assertEquals(OutboxStatus.DONE, deleted.getStatus());
+        assertNotNull(deleted.getLastError());
+        assertEquals(OutboxStatus.DONE, ok.getStatus());
+        assertNull(ok.getLastError());
+        verify(invoiceService).generateInvoicesForSessions(List.of(2L));
+        assertEquals(1, outboxService.getStats().missingSessions());
+        assertEquals(1, outboxService.getStats().invoicesCreated());
+    }
+
+    private static void assertBackoff(LocalDateTime before, InvoiceOutbox entry, long expectedMillis) {
+        long delay = Duration.between(before, entry.getNextAttemptAt()).toMillis();
+        assertTrue(delay >= expectedMillis && delay < expectedMillis + 1000, "delay " + delay + " ms");
+    }
+
+    private static InvoiceOutbox entry(Long sessionId, int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        return InvoiceOutbox.builder()
+                .outboxId(sessionId + 100)
+                .sessionId(sessionId)
+                .status(OutboxStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(now)
+                .createdAt(now.minusSeconds(5))
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package project.code.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private final PasswordHashingService service =
+            new PasswordHashingService(new BCryptPasswordEncoder(4), 1, 1, 500);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    void encodeCompletesWithoutBlockingCaller() throws Exception {
+        String hash = service.encode("secret123").get(5, TimeUnit.SECONDS);
+
+        assertTrue(new BCryptPasswordEncoder().matches("secret123", hash));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = service.submit(() -> release.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> queued = service.submit(() -> "queued");
+
+        CompletableFuture<Object> rejected = service.submit(() -> "rejected");
+
+        ResponseStatusException error = assertInstanceOf(ResponseStatusException.class, failure(rejected));
+        assertEquals(503, error.getStatusCode().value());
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getStats().rejected());
+    }
+
+    @Test
+    void timesOutWith503() {
+        CompletableFuture<Object> slow = service.submit(() -> {
+            Thread.sleep(2000);
+            return "late";
+        });
+
+        ResponseStatusException error = assertInstanceOf(ResponseStatusException.class, failure(slow));
+        assertEquals(503, error.getStatusCode().value());
+    }
+
+    @Test
+    void taskExceptionIsPassedThroughUnchanged() {
+        CompletableFuture<Object> login = service.submit(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        });
+
+        assertInstanceOf(BadCredentialsException.class, failure(login));
+    }
+}
@@ -0,0 +1,104 @@
+package project.code.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadThroughCacheTest {
+
+    private static final int THREADS = 16;
+
+    private final ReadThroughCache<String, String> cache = new ReadThroughCache<>("test", 10, Duration.ofMinutes(5));
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = submitAll(() -> cache.get("ALL", key -> {
+            loads.incrementAndGet();
+            await(release);
+            return "catalog";
+        }));
+        // Đợi các request khác xếp hàng sau lần nạp đầu tiên rồi mới cho loader trả về
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("catalog", future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals("catalog", cache.get("ALL", key -> fail("đã có trong cache")));
+    }
+
+    @Test
+    void loaderFailureReachesEveryWaiterAndIsNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = submitAll(() -> cache.get("ALL", key -> {
+            await(release);
+            throw new IllegalStateException("DB down");
+        }));
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals("ok", cache.get("ALL", key -> "ok"));
+    }
+
+    @Test
+    void loadStartedBeforeInvalidateIsNotCachedOrShared() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<String> stale = pool.submit(() -> cache.get("ALL", key -> {
+            started.countDown();
+            await(release);
+            return "old";
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        cache.invalidateAll();
+        // Sau invalidate, request mới tự nạp dữ liệu mới thay vì đợi lần nạp cũ
+        assertEquals("new", cache.get("ALL", key -> "new"));
+        release.countDown();
+
+        assertEquals("old", stale.get(10, TimeUnit.SECONDS));
+        assertEquals("new", cache.get("ALL", key -> fail("đã có trong cache")));
+        pool.shutdown();
+    }
+
+    private List<Future<String>> submitAll(Callable<String> task) {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(task));
+        }
+        pool.shutdown();
+        return futures;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import project.code.dto.station.PointStatusCountDto;
+import project.code.model.enums.ChargingPointStatus;
+import project.code.model.enums.ConnectorType;
+import project.code.repository.ChargingPointRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StationAvailabilityCountersTest {
+
+    private ChargingPointRepository repository;
+    private StationAvailabilityCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChargingPointRepository.class);
+        when(repository.countGroupedByStationTypeAndStatus()).thenReturn(List.of(
+                row(1L, ChargingPointStatus.AVAILABLE, 2),
+                row(1L, ChargingPointStatus.CHARGING, 1)));
+        counters = new StationAvailabilityCounters(repository);
+        counters.load();
+    }
+
+    @Test
+    void reconcileCorrectsDriftOnQuietStation() {
+        when(repository.countGroupedByStationTypeAndStatus()).thenReturn(List.of(
+                row(1L, ChargingPointStatus.AVAILABLE, 3)));
+
+        counters.reconcile();
+
+        assertEquals(3, counters.available(1L));
+        assertEquals(3, counters.total(1L));
+    }
+
+    @Test
+    void deltaAppliedDuringReloadIsNeitherLostNorDoubled() {
+        // DB đọc trước khi phiên sạc commit; delta của phiên đó được áp vào bộ đếm trong lúc reconcile đang đọc
+        when(repository.countGroupedByStationTypeAndStatus()).thenAnswer(inv -> {
+            counters.pointChangedAfterCommit(1L, ConnectorType.CCS, ChargingPointStatus.AVAILABLE,
+                    ConnectorType.CCS, ChargingPointStatus.CHARGING);
+            return List.of(row(1L, ChargingPointStatus.AVAILABLE, 2), row(1L, ChargingPointStatus.CHARGING, 1));
+        });
+
+        counters.reconcile();
+
+        assertEquals(1, counters.available(1L));
+        assertEquals(3, counters.total(1L));
+    }
+
+    @Test
+    void stationAddedDuringReloadKeepsItsDelta() {
+        when(repository.countGroupedByStationTypeAndStatus()).thenAnswer(inv -> {
+            counters.pointAddedAfterCommit(2L, ConnectorType.CCS, ChargingPointStatus.AVAILABLE);
+            return List.of(row(1L, ChargingPointStatus.AVAILABLE, 2), row(1L, ChargingPointStatus.CHARGING, 1));
+        });
+
+        counters.reconcile();
+
+        assertEquals(1, counters.available(2L));
+        assertEquals(List.of(1L, 2L), counters.stationsWithAvailable(null).stream().sorted().toList());
+    }
+
+    @Test
+    void stationMissingFromDatabaseIsZeroed() {
+        when(repository.countGroupedByStationTypeAndStatus()).thenReturn(List.of());
+
+        counters.reconcile();
+
+        assertEquals(0, counters.total(1L));
+        assertTrue(counters.stationsWithAvailable(ConnectorType.CCS).isEmpty());
+    }
+
+    private static PointStatusCountDto row(Long stationId, ChargingPointStatus status, long count) {
+        return new PointStatusCountDto(stationId, ConnectorType.CCS, status, count);
+    }
+}
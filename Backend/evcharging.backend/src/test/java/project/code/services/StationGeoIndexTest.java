@@ -0,0 +1,111 @@
+package project.code.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import project.code.model.ChargingStation.StationStatus;
+import project.code.repository.ChargingStationRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class StationGeoIndexTest {
+
+    // Khung bao gần với lãnh thổ Việt Nam
+    private static final double MIN_LAT = 8.5;
+    private static final double MAX_LAT = 23.4;
+    private static final double MIN_LON = 102.1;
+    private static final double MAX_LON = 109.5;
+
+    private static final int STATIONS = 20_000;
+    private static final int QUERIES = 500;
+    private static final double RADIUS_KM = 10.0;
+
+    private StationGeoIndex geoIndex;
+
+    @BeforeEach
+    void setUp() {
+        geoIndex = new StationGeoIndex(mock(ChargingStationRepository.class), 0.05);
+    }
+
+    @Test
+    void stationWithClearedCoordinatesLeavesTheIndex() {
+        geoIndex.put(1L, 21.0285, 105.8542, StationStatus.AVAILABLE);
+        assertEquals(1, geoIndex.withinRadius(21.03, 105.85, 1.0).size());
+
+        geoIndex.put(1L, null, null, StationStatus.AVAILABLE);
+
+        assertTrue(geoIndex.withinRadius(21.03, 105.85, 1.0).isEmpty());
+    }
+
+    @Test
+    void withinRadiusOverTwentyThousandStationsMatchesFullScanAndIsFaster() {
+        Random random = new Random(42);
+        List<double[]> stations = new ArrayList<>(STATIONS);
+        for (long id = 0; id < STATIONS; id++) {
+            double lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            double lon = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+            stations.add(new double[]{id, lat, lon});
+            geoIndex.put(id, lat, lon, StationStatus.AVAILABLE);
+        }
+        double[][] queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new double[]{MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT),
+                    MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON)};
+        }
+
+        // Kết quả phải trùng với duyệt toàn bộ danh sách
+        for (int i = 0; i < 100; i++) {
+            double[] q = queries[i];
+            List<Long> expected = fullScan(stations, q[0], q[1]);
+            List<Long> actual = geoIndex.withinRadius(q[0], q[1], RADIUS_KM).stream()
+                    .map(StationGeoIndex.Hit::stationId).toList();
+            assertEquals(expected, actual);
+        }
+
+        // Chạy nóng JIT rồi đo
+        for (int i = 0; i < QUERIES; i++) {
+            geoIndex.withinRadius(queries[i][0], queries[i][1], RADIUS_KM);
+            fullScan(stations, queries[i][0], queries[i][1]);
+        }
+        long indexNanos = time(() -> {
+            for (double[] q : queries) {
+                geoIndex.withinRadius(q[0], q[1], RADIUS_KM);
+            }
+        });
+        long scanNanos = time(() -> {
+            for (double[] q : queries) {
+                fullScan(stations, q[0], q[1]);
+            }
+        });
+
+        double indexMicros = TimeUnit.NANOSECONDS.toMicros(indexNanos) / (double) QUERIES;
+        double scanMicros = TimeUnit.NANOSECONDS.toMicros(scanNanos) / (double) QUERIES;
+        System.out.printf("withinRadius(%.0f km) over %d stations: index %.1f us/query, full scan %.1f us/query%n",
+                RADIUS_KM, STATIONS, indexMicros, scanMicros);
+        assertTrue(indexNanos * 5 < scanNanos, "index " + indexMicros + " us, scan " + scanMicros + " us");
+    }
+
+    private static List<Long> fullScan(List<double[]> stations, double lat, double lon) {
+        List<double[]> hits = new ArrayList<>();
+        for (double[] s : stations) {
+            double distance = StationGeoIndex.haversineKm(lat, lon, s[1], s[2]);
+            if (distance <= RADIUS_KM) {
+                hits.add(new double[]{s[0], distance});
+            }
+        }
+        hits.sort(Comparator.comparingDouble(h -> h[1]));
+        return hits.stream().map(h -> (long) h[0]).toList();
+    }
+
+    private static long time(Runnable action) {
+        long startedAt = System.nanoTime();
+        action.run();
+        return System.nanoTime() - startedAt;
+    }
+}
@@ -0,0 +1,132 @@
+package project.code.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.code.model.EVDriver;
+import project.code.model.User;
+import project.code.model.enums.Role;
+import project.code.model.enums.WalletTransactionType;
+import project.code.repository.EVDriverRepository;
+import project.code.repository.UserRepository;
+import project.code.repository.WalletTransactionRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chạy WalletService trên database thật (H2 chế độ MySQL): cộng số dư nguyên tử bằng UPDATE và unique key
+ * idempotency được kiểm tra với nhiều transaction song song, không qua mock.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(WalletService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WalletServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int KEYS = 100;
+    private static final int COPIES_PER_KEY = 3;
+
+    @Autowired
+    private WalletService walletService;
+    @Autowired
+    private EVDriverRepository driverRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletTransactionRepository transactionRepository;
+
+    private EVDriver driver;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .name("Tài xế")
+                .email("wallet-" + System.nanoTime() + "@example.com")
+                .password("x")
+                .role(Role.ROLE_EVDRIVER)
+                .build());
+        driver = driverRepository.save(EVDriver.builder().userAccount(user).walletBalance(1000.0).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        driverRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void parallelEntriesWithDuplicateKeysApplyEachKeyExactlyOnce() throws Exception {
+        // Mỗi key được gửi COPIES_PER_KEY lần xen kẽ nhau: key chẵn nạp 10, key lẻ trừ 3
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<WalletService.WalletEntryResult>> futures = new ArrayList<>();
+        for (int copy = 0; copy < COPIES_PER_KEY; copy++) {
+            for (int k = 0; k < KEYS; k++) {
+                String key = "key-" + k;
+                double amount = k % 2 == 0 ? 10.0 : -3.0;
+                WalletTransactionType type = amount > 0 ? WalletTransactionType.TOP_UP : WalletTransactionType.CHARGE_PAYMENT;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return walletService.apply(driver, type, amount, key, null);
+                }));
+            }
+        }
+        start.countDown();
+
+        int applied = 0;
+        int duplicates = 0;
+        int rejectedByUniqueKey = 0;
+        for (Future<WalletService.WalletEntryResult> future : futures) {
+            try {
+                WalletService.WalletEntryResult result = future.get(60, TimeUnit.SECONDS);
+                if (result.duplicate()) {
+                    duplicates++;
+                } else {
+                    applied++;
+                }
+            } catch (ExecutionException e) {
+                // Bản trùng chạy song song vướng unique key; transaction của nó rollback cả phần cộng số dư
+                assertInstanceOf(DataIntegrityViolationException.class, e.getCause());
+                rejectedByUniqueKey++;
+            }
+        }
+        pool.shutdown();
+
+        double expected = 1000.0 + (KEYS / 2) * 10.0 - (KEYS / 2) * 3.0;
+        assertEquals(KEYS, applied);
+        assertEquals(KEYS * (COPIES_PER_KEY - 1), duplicates + rejectedByUniqueKey);
+        assertEquals(expected, driverRepository.findWalletBalanceById(driver.getId()).orElseThrow(), 1e-9);
+        assertEquals(KEYS, transactionRepository.count());
+    }
+
+    @Test
+    void savingStaleProfileDoesNotOverwriteBalance() {
+        EVDriver stale = driverRepository.findById(driver.getId()).orElseThrow();
+
+        walletService.apply(driver, WalletTransactionType.TOP_UP, 50.0, "topup-stale", null);
+        stale.setPhoneNumber("0900000000");
+        driverRepository.save(stale);
+
+        assertEquals(1050.0, driverRepository.findWalletBalanceById(driver.getId()).orElseThrow(), 1e-9);
+    }
+}
@@ -0,0 +1,119 @@
+package project.code.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import project.code.dto.wallet.WalletTransactionDto;
+import project.code.model.EVDriver;
+import project.code.model.WalletTransaction;
+import project.code.model.enums.WalletTransactionType;
+import project.code.repository.EVDriverRepository;
+import project.code.repository.WalletTransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WalletServiceTest {
+
+    private WalletTransactionRepository transactionRepository;
+    private EVDriverRepository driverRepository;
+    private WalletService walletService;
+    private final EVDriver driver = EVDriver.builder().id(7L).build();
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(WalletTransactionRepository.class);
+        driverRepository = mock(EVDriverRepository.class);
+        walletService = new WalletService(transactionRepository, driverRepository);
+        when(transactionRepository.findByIdempotencyKey(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void appliesDeltaAndWritesLedgerRowWithNewBalance() {
+        when(driverRepository.incrementWalletBalance(7L, -30.0)).thenReturn(1);
+        when(driverRepository.findWalletBalanceById(7L)).thenReturn(Optional.of(70.0));
+
+        WalletService.WalletEntryResult result = walletService.apply(driver, WalletTransactionType.CHARGE_PAYMENT,
+                -30.0, "session-5", 5L);
+
+        assertEquals(100.0, result.oldBalance());
+        assertEquals(70.0, result.newBalance());
+        assertFalse(result.duplicate());
+
+        ArgumentCaptor<WalletTransaction> saved = ArgumentCaptor.forClass(WalletTransaction.class);
+        verify(transactionRepository).saveAndFlush(saved.capture());
+        WalletTransaction tx = saved.getValue();
+        assertEquals(-30.0, tx.getAmount());
+        assertEquals(70.0, tx.getBalanceAfter());
+        assertEquals("session-5", tx.getIdempotencyKey());
+        assertEquals(5L, tx.getReferenceId());
+        assertSame(driver, tx.getDriver());
+    }
+
+    @Test
+    void replayedKeyReturnsOriginalEntryWithoutTouchingBalance() {
+        when(transactionRepository.findByIdempotencyKey("topup-1")).thenReturn(Optional.of(WalletTransaction.builder()
+                .amount(50.0)
+                .balanceAfter(150.0)
+                .idempotencyKey("topup-1")
+                .build()));
+
+        WalletService.WalletEntryResult result = walletService.apply(driver, WalletTransactionType.TOP_UP,
+                50.0, "topup-1", null);
+
+        assertTrue(result.duplicate());
+        assertEquals(100.0, result.oldBalance());
+        assertEquals(150.0, result.newBalance());
+        verify(driverRepository, never()).incrementWalletBalance(anyLong(), anyDouble());
+        verify(transactionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void unknownDriverFailsBeforeWritingLedger() {
+        when(driverRepository.incrementWalletBalance(eq(7L), anyDouble())).thenReturn(0);
+
+        assertThrows(EntityNotFoundException.class, () ->
+                walletService.apply(driver, WalletTransactionType.TOP_UP, 10.0, "topup-2", null));
+        verify(transactionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void concurrentDuplicateKeySurfacesConstraintViolation() {
+        // Request cùng key đến sau lần kiểm tra: unique key chặn lại và lỗi phải lan ra để rollback phần cộng số dư
+        when(driverRepository.incrementWalletBalance(7L, 10.0)).thenReturn(1);
+        when(driverRepository.findWalletBalanceById(7L)).thenReturn(Optional.of(110.0));
+        when(transactionRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_wallet_tx_idempotency"));
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+                walletService.apply(driver, WalletTransactionType.TOP_UP, 10.0, "topup-3", null));
+    }
+
+    @Test
+    void historyPageSizeIsClamped() {
+        when(transactionRepository.findByDriverOrderByTransactionIdDesc(eq(driver), any(Pageable.class)))
+                .thenReturn(List.of(WalletTransaction.builder()
+                        .transactionId(1L)
+                        .type(WalletTransactionType.TOP_UP)
+                        .amount(20.0)
+                        .balanceAfter(20.0)
+                        .createdAt(LocalDateTime.now())
+                        .build()));
+
+        List<WalletTransactionDto> page = walletService.getTransactions(driver, -1, 10_000);
+
+        assertEquals(1, page.size());
+        verify(transactionRepository).findByDriverOrderByTransactionIdDesc(driver, PageRequest.of(0, 100));
+    }
+}
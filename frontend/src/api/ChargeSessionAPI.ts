@@ -3,6 +3,7 @@ import API from './api';
 import {
     ChargeSessionDto,
     CreateSessionData,
+    LiveSessionDto,
     StopSessionData
 } from '../types';
 
@@ -26,4 +27,51 @@ export const apiStartSession = async (data: CreateSessionData): Promise<ChargeSe
 export const apiStopSession = async (id: number, data: StopSessionData): Promise<ChargeSessionDto> => {
     const res = await API.post(`/charge-sessions/${id}/stop`, data);
     return res.data;
+};
+
+// EventSource không gửi được header Authorization nên đọc stream SSE bằng fetch.
+// Trả về hàm hủy đăng ký.
+export const subscribeSessionStream = (
+    id: number,
+    onUpdate: (update: LiveSessionDto) => void
+): (() => void) => {
+    const controller = new AbortController();
+    const token = localStorage.getItem('token');
+
+    (async () => {
+        const res = await fetch(`${API.defaults.baseURL}/charge-sessions/${id}/stream`, {
+            headers: {
+                Accept: 'text/event-stream',
+                ...(token ? { Authorization: `Bearer ${token}` } : {}),
+            },
+            signal: controller.signal,
+        });
+        if (!res.ok || !res.body) return;
+
+        const reader = res.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+
+        while (true) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += decoder.decode(value, { stream: true });
+
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) !== -1) {
+                const event = buffer.slice(0, boundary);
+                buffer = buffer.slice(boundary + 2);
+                const data = event
+                    .split('\n')
+                    .filter(line => line.startsWith('data:'))
+                    .map(line => line.slice(5))
+                    .join('\n');
+                if (data) onUpdate(JSON.parse(data));
+            }
+        }
+    })().catch(() => {
+        // Bị hủy khi unmount hoặc mất kết nối
+    });
+
+    return () => controller.abort();
 };
\ No newline at end of file
@@ -1,16 +1,77 @@
 import API from './api';
-import { ChatHistoryDto } from '../types';
+import { ChatHistoryDto, ChatHistoryPageDto } from '../types';
 
 export const apiSendChatMessage = async (message: string): Promise<{ response: string; timestamp: number }> => {
     const response = await API.post('/chatbot/chat', { message });
     return response.data;
 };
 
+// Gửi tin nhắn và nhận câu trả lời dạng SSE: onChunk được gọi với từng đoạn text, Promise trả về câu trả lời đầy đủ
+export const apiStreamChatMessage = async (
+    message: string,
+    onChunk: (text: string) => void
+): Promise<string> => {
+    const token = localStorage.getItem('token');
+    const res = await fetch(`${API.defaults.baseURL}/chatbot/chat/stream`, {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/json',
+            Accept: 'text/event-stream',
+            ...(token ? { Authorization: `Bearer ${token}` } : {}),
+        },
+        body: JSON.stringify({ message }),
+    });
+    if (!res.ok || !res.body) {
+        throw new Error(`Chat stream failed: ${res.status}`);
+    }
+
+    const reader = res.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    let assembled = '';
+
+    while (true) {
+        const { value, done } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+
+        let boundary;
+        while ((boundary = buffer.indexOf('\n\n')) !== -1) {
+            const event = buffer.slice(0, boundary);
+            buffer = buffer.slice(boundary + 2);
+            const lines = event.split('\n');
+            const name = lines.find(line => line.startsWith('event:'))?.slice(6).trim();
+            const data = lines
+                .filter(line => line.startsWith('data:'))
+                .map(line => line.slice(5))
+                .join('\n');
+            if (!data) continue;
+
+            const payload = JSON.parse(data);
+            if (name === 'chunk') {
+                assembled += payload.text;
+                onChunk(payload.text);
+            } else if (name === 'done') {
+                return payload.response;
+            } else if (name === 'error') {
+                throw new Error(payload.message);
+            }
+        }
+    }
+    return assembled;
+};
+
 export const apiGetChatHistory = async (): Promise<ChatHistoryDto[]> => {
     const response = await API.get('/chatbot/history');
     return response.data;
 };
 
+// Trang lịch sử mới trước; truyền nextCursor của trang trước để lấy các tin nhắn cũ hơn
+export const apiGetChatHistoryPage = async (cursor?: number | null, size?: number): Promise<ChatHistoryPageDto> => {
+    const response = await API.get('/chatbot/history/page', { params: { cursor: cursor ?? undefined, size } });
+    return response.data;
+};
+
 export const apiClearChatHistory = async (): Promise<void> => {
     await API.delete('/chatbot/history');
 };
\ No newline at end of file
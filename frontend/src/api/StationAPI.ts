@@ -1,23 +1,24 @@
 import API from './api';
 import {
     ChargingStationDto,
-    ChargingPointDto
+    ChargingPointDto,
+    NearbyStationDto
 } from '../types';
 
 export interface CreateStationRequest {
     name: string;
     location: string;
+    latitude?: number | null;
+    longitude?: number | null;
     status: 'AVAILABLE' | 'IN_USE' | 'OFFLINE';
-    totalChargingPoint: number;
-    availableChargers: number;
 }
 
 export interface UpdateStationRequest {
   name: string;
   location: string;
+  latitude?: number | null;
+  longitude?: number | null;
   status: 'AVAILABLE' | 'IN_USE' | 'OFFLINE'; // phải match backend enum
-  totalChargingPoint: number;
-  availableChargers: number;
 }
 
 export type ConnectorType = 'AC_TYPE_1' | 'AC_TYPE_2' | 'CCS' | 'CHADEMO';
@@ -46,6 +47,28 @@ export const apiGetStationById = async (id: number): Promise<ChargingStationDto>
     return res.data;
 };
 
+// Trạm còn điểm sạc trống (lọc theo loại đầu sạc nếu có)
+export const apiGetStationsWithAvailable = async (connectorType?: ConnectorType): Promise<ChargingStationDto[]> => {
+    const res = await API.get('/charging-stations/available', {
+        params: { connectorType }
+    });
+    return res.data;
+};
+
+// Trạm gần nhất còn điểm sạc trống trong bán kính radiusKm
+export const apiGetNearbyStations = async (
+    lat: number,
+    lng: number,
+    radiusKm = 10,
+    connectorType?: ConnectorType,
+    limit = 10
+): Promise<NearbyStationDto[]> => {
+    const res = await API.get('/charging-stations/nearby', {
+        params: { lat, lng, radiusKm, connectorType, limit }
+    });
+    return res.data;
+};
+
 export const apiGetChargingPointsByStationId = async (stationId: number): Promise<ChargingPointDto[]> => {
 
     const res = await API.get('/charging-points', {
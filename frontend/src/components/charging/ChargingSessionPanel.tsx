@@ -5,6 +5,7 @@ import { Button } from '../ui/button';
 import { Progress } from '../ui/progress';
 import { Badge } from '../ui/badge';
 import { ChargeSessionDto } from '../../types/index';
+import { subscribeSessionStream } from '../../api/ChargeSessionAPI';
 import "../../styles/globals.css"
 
 interface ChargingSessionPanelProps {
@@ -17,17 +18,27 @@ export function ChargingSessionPanel({ session, onStop }: ChargingSessionPanelPr
     const [currentKwh, setCurrentKwh] = useState(session.energyUsed);
     const [currentCost, setCurrentCost] = useState(session.cost);
     const [elapsedTime, setElapsedTime] = useState(0);
+    const [hasSocReading, setHasSocReading] = useState(false);
 
+    // Số liệu do server đẩy qua SSE; đồng hồ chỉ tự đếm giây giữa hai lần cập nhật
     useEffect(() => {
-        const interval = setInterval(() => {
-            setCurrentSoc((prev:any) => Math.min(prev + 0.5, 100));
-            setCurrentKwh((prev:any) => prev + 0.3);
-            setCurrentCost((prev:any) => prev + 300);
-            setElapsedTime((prev) => prev + 1);
-        }, 3000);
+        const unsubscribe = subscribeSessionStream(session.sessionId, (update) => {
+            setCurrentKwh(update.energyUsed);
+            setCurrentCost(update.cost);
+            setElapsedTime(update.elapsedSeconds);
+            if (update.stateOfCharge != null) {
+                setCurrentSoc(update.stateOfCharge);
+                setHasSocReading(true);
+            }
+        });
 
-        return () => clearInterval(interval);
-    }, []);
+        const ticker = setInterval(() => setElapsedTime((prev) => prev + 1), 1000);
+
+        return () => {
+            unsubscribe();
+            clearInterval(ticker);
+        };
+    }, [session.sessionId]);
 
     const formatCurrency = (amount: number) => {
         return new Intl.NumberFormat('vi-VN', { style: 'currency', currency: 'VND' }).format(amount);
@@ -65,7 +76,7 @@ export function ChargingSessionPanel({ session, onStop }: ChargingSessionPanelPr
                 <div className="flex items-center justify-between mb-2">
                     <div className="flex items-center gap-2">
                         <Battery className="h-5 w-5 text-[#0f766e]" />
-                        <span>Battery Level (Simulated)</span>
+                        <span>Battery Level{hasSocReading ? '' : ' (No reading yet)'}</span>
                     </div>
                     <span className="text-2xl">{Math.round(currentSoc)}%</span>
                 </div>
@@ -11,7 +11,7 @@ interface ChatMessage {
 }
 
 interface ChatbotPanelProps {
-  onSendMessage: (message: string) => Promise<string>;
+  onSendMessage: (message: string, onChunk?: (text: string) => void) => Promise<string>;
   onClearHistory?: () => Promise<void>;
   isOpen: boolean;
   onToggle: () => void;
@@ -57,21 +57,29 @@ export function ChatbotPanel({
     setInputMessage('');
     setIsLoading(true);
 
+    // Tin nhắn của bot được tạo khi có đoạn text đầu tiên rồi nối dần các đoạn tiếp theo
+    const botMessageId = (Date.now() + 1).toString();
+    const upsertBotMessage = (update: (content: string) => string) => {
+      setMessages(prev => {
+        const existing = prev.find(m => m.id === botMessageId);
+        if (existing) {
+          return prev.map(m => m.id === botMessageId ? { ...m, content: update(m.content) } : m);
+        }
+        return [...prev, { id: botMessageId, role: 'assistant', content: update(''), timestamp: Date.now() }];
+      });
+    };
+
     try {
-      const response = await onSendMessage(inputMessage);
-      
-      const botMessage: ChatMessage = {
-        id: (Date.now() + 1).toString(),
-        role: 'assistant',
-        content: response,
-        timestamp: Date.now()
-      };
+      const response = await onSendMessage(inputMessage, text => {
+        setIsLoading(false);
+        upsertBotMessage(content => content + text);
+      });
 
-      setMessages(prev => [...prev, botMessage]);
+      upsertBotMessage(() => response);
     } catch (error) {
       console.error('Error sending message:', error);
       const errorMessage: ChatMessage = {
-        id: (Date.now() + 1).toString(),
+        id: `${botMessageId}-error`,
         role: 'assistant',
         content: 'Xin lỗi, đã có lỗi xảy ra. Vui lòng thử lại sau.',
         timestamp: Date.now()
@@ -28,8 +28,6 @@ export function AddStationModal({ isOpen, onClose, onSuccess }: AddStationModalP
         name: '',
         location: '',
         status: StationStatus.AVAILABLE as StationStatusType,
-        totalChargingPoint: '',
-        availableChargers: '',
     });
     const [isLoading, setIsLoading] = useState(false);
     const [errors, setErrors] = useState<Record<string, string>>({});
@@ -60,27 +58,6 @@ export function AddStationModal({ isOpen, onClose, onSuccess }: AddStationModalP
             newErrors.location = 'Vị trí không được để trống';
         }
 
-        if (!formData.totalChargingPoint) {
-            newErrors.totalChargingPoint = 'Tổng số cổng sạc không được để trống';
-        } else {
-            const totalPoints = parseInt(formData.totalChargingPoint);
-            if (isNaN(totalPoints) || totalPoints < 1) {
-                newErrors.totalChargingPoint = 'Tổng số cổng sạc phải là số nguyên dương';
-            }
-        }
-
-        if (!formData.availableChargers) {
-            newErrors.availableChargers = 'Số cổng khả dụng không được để trống';
-        } else {
-            const availablePoints = parseInt(formData.availableChargers);
-            const totalPoints = parseInt(formData.totalChargingPoint);
-
-            if (isNaN(availablePoints) || availablePoints < 0) {
-                newErrors.availableChargers = 'Số cổng khả dụng phải là số không âm';
-            } else if (!isNaN(totalPoints) && availablePoints > totalPoints) {
-                newErrors.availableChargers = 'Số cổng khả dụng không thể lớn hơn tổng số cổng';
-            }
-        }
 
         setErrors(newErrors);
         return Object.keys(newErrors).length === 0;
@@ -97,9 +74,7 @@ export function AddStationModal({ isOpen, onClose, onSuccess }: AddStationModalP
             const requestBody: CreateStationRequest = {
                 name: formData.name.trim(),
                 location: formData.location.trim(),
-                status: formData.status as 'AVAILABLE' | 'IN_USE' | 'OFFLINE',
-                totalChargingPoint: parseInt(formData.totalChargingPoint),
-                availableChargers: parseInt(formData.availableChargers)
+                status: formData.status as 'AVAILABLE' | 'IN_USE' | 'OFFLINE'
             };
 
             console.log('Sending request:', requestBody);
@@ -113,8 +88,6 @@ export function AddStationModal({ isOpen, onClose, onSuccess }: AddStationModalP
                 name: '',
                 location: '',
                 status: StationStatus.AVAILABLE as StationStatusType,
-                totalChargingPoint: '',
-                availableChargers: '',
             });
             setErrors({});
 
@@ -248,48 +221,9 @@ export function AddStationModal({ isOpen, onClose, onSuccess }: AddStationModalP
                             </select>
                         </div>
 
-                        <div>
-                            <Label htmlFor="totalChargingPoint">
-                                Tổng số cổng sạc <span className="text-red-500">*</span>
-                            </Label>
-                            <Input
-                                id="totalChargingPoint"
-                                name="totalChargingPoint"
-                                type="number"
-                                min="1"
-                                placeholder="VD: 4"
-                                value={formData.totalChargingPoint}
-                                onChange={handleChange}
-                                disabled={isLoading}
-                                className={errors.totalChargingPoint ? 'border-red-500' : ''}
-                            />
-                            {errors.totalChargingPoint && (
-                                <p className="text-sm text-red-500 mt-1">{errors.totalChargingPoint}</p>
-                            )}
-                        </div>
-
-                        <div>
-                            <Label htmlFor="availableChargers">
-                                Số cổng khả dụng <span className="text-red-500">*</span>
-                            </Label>
-                            <Input
-                                id="availableChargers"
-                                name="availableChargers"
-                                type="number"
-                                min="0"
-                                placeholder="VD: 4"
-                                value={formData.availableChargers}
-                                onChange={handleChange}
-                                disabled={isLoading}
-                                className={errors.availableChargers ? 'border-red-500' : ''}
-                            />
-                            {errors.availableChargers && (
-                                <p className="text-sm text-red-500 mt-1">{errors.availableChargers}</p>
-                            )}
-                            <p className="text-xs text-gray-500 mt-1">
-                                Số cổng khả dụng không được vượt quá tổng số cổng sạc
-                            </p>
-                        </div>
+                        <p className="text-xs text-gray-500">
+                            Số cổng sạc của trạm được tính tự động từ các điểm sạc thêm vào trạm
+                        </p>
 
                         <div className="flex gap-3 pt-4">
                             <Button
@@ -130,8 +130,6 @@ export function AdminDashboard({ onNavigate }: AdminDashboardProps) {
                 name: editingStation.name,
                 location: editingStation.location,
                 status: backendStatus,
-                totalChargingPoint: editingStation.ports,
-                availableChargers: editingStation.ports,
             };
             const updatedStation = await apiUpdateStation(editingStation.id, data);
             toast.success('Cập nhật trạng thái thành công!');
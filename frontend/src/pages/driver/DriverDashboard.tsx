@@ -44,7 +44,7 @@ import {
 } from '../../types';
 
 import { ChatbotPanel } from '../../components/chatbot/ChatbotPanel';
-import { apiSendChatMessage, apiClearChatHistory } from '../../api/ChatbotAPI';
+import { apiStreamChatMessage, apiClearChatHistory } from '../../api/ChatbotAPI';
 
 interface DriverDashboardProps {
     onNavigate: (path: string) => void;
@@ -179,10 +179,9 @@ export function DriverDashboard({ onNavigate, isWalletDialogOpen, onWalletDialog
         loadDashboardData();
     }, []);
 
-    const handleSendChatMessage = async (message: string): Promise<string> => {
+    const handleSendChatMessage = async (message: string, onChunk?: (text: string) => void): Promise<string> => {
     try {
-        const response = await apiSendChatMessage(message);
-        return response.response;
+        return await apiStreamChatMessage(message, text => onChunk?.(text));
       } catch (error) {
         console.error('Error sending chat message:', error);
         throw error;
@@ -2,7 +2,7 @@ export type ConnectorType = 'CCS' | 'CHADEMO' | 'AC_TYPE_2' | 'AC_TYPE_1';
 export type SessionStatus = 'PENDING' | 'ACTIVE' | 'COMPLETED' | 'FAILED' | 'CHARGING';
 export type ChargingPointStatus = 'AVAILABLE' | 'CHARGING' | 'RESERVED' | 'OFFLINE' | 'FAULTED';
 export type PaymentType = 'CREDIT_CARD' | 'E_WALLET' | 'BANK_TRANSFER' | 'CASH';
-export type BookingStatus = 'PENDING' | 'CONFIRMED' | 'COMPLETED' | 'CANCELLED';
+export type BookingStatus = 'PENDING' | 'CONFIRMED' | 'COMPLETED' | 'CANCELLED' | 'NO_SHOW';
 
 export interface AuthResponse {
     token: string;
@@ -58,6 +58,18 @@ export interface ChargeSessionDto {
     status: SessionStatus;
 }
 
+export interface LiveSessionDto {
+    sessionId: number;
+    status: SessionStatus;
+    energyUsed: number;
+    cost: number;
+    powerKw: number | null;
+    stateOfCharge: number | null;
+    elapsedSeconds: number;
+    sampleCount: number;
+    lastSampleAt: string | null;
+}
+
 export interface CreateSessionData {
     driverId: number;
     vehicleId: number;
@@ -72,10 +84,22 @@ export interface ChargingStationDto {
   stationId: number;
   name: string;
   location: string;
+  latitude?: number | null;
+  longitude?: number | null;
   status: 'AVAILABLE' | 'IN_USE' | 'OFFLINE' | 'FAULTED';
   totalChargingPoint: number;
   availableChargers: number;
 }
+export interface NearbyStationDto {
+  stationId: number;
+  name: string;
+  location: string;
+  status: 'AVAILABLE' | 'IN_USE' | 'OFFLINE' | 'FAULTED';
+  latitude: number;
+  longitude: number;
+  distanceKm: number;
+  availableChargers: number;
+}
 export interface ChargingPointDto {
     chargingPointId: number;
     stationId: number;
@@ -202,4 +226,10 @@ export interface ChatHistoryDto {
     userMessage: string;
     botResponse: string;
     timestamp: string;
+}
+
+export interface ChatHistoryPageDto {
+    items: ChatHistoryDto[];
+    nextCursor: number | null;
+    hasMore: boolean;
 }
\ No newline at end of file